@@ -0,0 +1,122 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load driver for POST /api/draw. Seeds a prize, an activity and a
+ * pool of users (so quota counters do not serialize on one row), then keeps
+ * {@code concurrency} requests in flight for {@code seconds}.
+ *
+ * Run with: java scripts/DrawLoadTest.java [baseUrl] [concurrency] [seconds] [users]
+ */
+public class DrawLoadTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int userCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        long prizeId = create(client, baseUrl + "/api/admin/prizes",
+                "{\"name\":\"Load Test Prize\",\"totalStock\":1000000,\"probability\":0.1}");
+        OffsetDateTime now = OffsetDateTime.now();
+        long activityId = create(client, baseUrl + "/api/admin/activities",
+                "{\"name\":\"Load Test\",\"startTime\":\"" + now.minusHours(1) + "\",\"endTime\":\""
+                        + now.plusDays(1) + "\",\"maxDrawsPerUser\":1000000,\"prizeIds\":[" + prizeId + "]}");
+        long[] userIds = new long[userCount];
+        for (int i = 0; i < userCount; i++) {
+            userIds[i] = create(client, baseUrl + "/api/users",
+                    "{\"name\":\"load-" + i + "\",\"drawQuota\":1000000}");
+        }
+        System.out.printf("Seeded activity %d with %d users; %d concurrent requests for %ds%n",
+                activityId, userCount, concurrency, seconds);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    List<Long> mine = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long userId = userIds[Math.floorMod(next.getAndIncrement(), userIds.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/draw"))
+                                .header("Authorization", "Bearer user-token")
+                                .header("Content-Type", "application/json")
+                                .timeout(Duration.ofSeconds(30))
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":" + userId
+                                        + ",\"activityId\":" + activityId + ",\"count\":1}"))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                            mine.add(System.nanoTime() - sent);
+                        } catch (Exception e) {
+                            failures.increment();
+                        }
+                    }
+                    latencies.add(mine.stream().mapToLong(Long::longValue).toArray());
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("Requests:   %d in %.1fs (%.0f req/s), %d transport errors%n",
+                all.length, elapsed, all.length / elapsed, failures.sum());
+        System.out.printf("Latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), percentile(all, 1.0));
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+        System.out.println("Status:     " + byStatus);
+    }
+
+    private static long create(HttpClient client, String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer admin-secret")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Seeding " + url + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
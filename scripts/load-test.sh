@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares the draw API on Tomcat's platform-thread pool against virtual threads.
+# Each mode gets a fresh application (and H2 database) on the same port.
+#
+# Usage: scripts/load-test.sh [concurrency] [seconds] [users]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-200}
+SECONDS_PER_RUN=${2:-30}
+USERS=${3:-1000}
+PORT=${PORT:-8080}
+# Extra JVM flags, e.g. -Djdk.tracePinnedThreads=short to report carrier pinning
+JAVA_OPTS=${JAVA_OPTS:-}
+
+mvn -B -q -DskipTests package
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+
+run() {
+  local label=$1
+  shift
+  echo "=== ${label} ==="
+  # Rate limiting would turn most requests into cheap 429s; measure the draw path itself
+  # shellcheck disable=SC2086
+  java ${JAVA_OPTS} -jar "${JAR}" --server.port="${PORT}" --spring.jpa.show-sql=false \
+    --luckydraw.rate-limit.enabled=false "$@" \
+    > "target/load-test-${label}.log" 2>&1 &
+  local pid=$!
+  trap 'kill ${pid} 2>/dev/null || true' EXIT
+
+  for _ in $(seq 1 60); do
+    if curl -s -o /dev/null "http://localhost:${PORT}/v3/api-docs"; then
+      break
+    fi
+    sleep 1
+  done
+
+  java scripts/DrawLoadTest.java "http://localhost:${PORT}" "${CONCURRENCY}" "${SECONDS_PER_RUN}" "${USERS}"
+  curl -s -H "Authorization: Bearer admin-secret" "http://localhost:${PORT}/api/admin/bulkhead"
+  echo
+
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+  trap - EXIT
+}
+
+run platform --spring.threads.virtual.enabled=false
+run virtual --spring.threads.virtual.enabled=true
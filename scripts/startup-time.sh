@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Measures cold start of the plain fat jar against the extracted jar with and
+# without the AppCDS archive from `mvn -Pcds package`: wall time until
+# /actuator/health/readiness is UP (after DrawWarmup), and Spring's own
+# "Started ... in" figure.
+#
+# Usage: scripts/startup-time.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-3}
+PORT=${PORT:-8080}
+# Extra JVM flags, e.g. -Xmx350m to match render.yaml
+JAVA_OPTS=${JAVA_OPTS:-}
+
+mvn -B -q -DskipTests -Pcds package
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+ROOT=$(pwd)
+
+measure() {
+  local label=$1 dir=$2
+  shift 2
+  for run in $(seq 1 "${RUNS}"); do
+    local log="${ROOT}/target/startup-${label}-${run}.log"
+    local start
+    start=$(date +%s%N)
+    # shellcheck disable=SC2086
+    (cd "${dir}" && exec java ${JAVA_OPTS} "$@" --server.port="${PORT}" --spring.jpa.show-sql=false) \
+      > "${log}" 2>&1 &
+    local pid=$!
+    trap 'kill ${pid} 2>/dev/null || true' EXIT
+
+    until curl -s "http://localhost:${PORT}/actuator/health/readiness" | grep -q '"UP"'; do
+      if ! kill -0 "${pid}" 2>/dev/null; then
+        echo "${label}: application exited, see ${log}" >&2
+        exit 1
+      fi
+      sleep 0.1
+    done
+    local ready_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    local started
+    started=$(grep -o 'Started [A-Za-z]* in [0-9.]* seconds' "${log}" | grep -o '[0-9.]* seconds' || echo "?")
+    printf '%-10s run %d: ready after %6d ms (Spring: %s)\n' "${label}" "${run}" "${ready_ms}" "${started}"
+
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    trap - EXIT
+  done
+}
+
+measure fat-jar "${ROOT}" -jar "${JAR}"
+measure extracted target/cds -jar app.jar
+measure cds target/cds -XX:SharedArchiveFile=application.jsa -jar app.jar
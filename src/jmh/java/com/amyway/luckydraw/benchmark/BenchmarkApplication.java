@@ -0,0 +1,88 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.LuckyDrawApplication;
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server against a private H2 database
+ * and seeds one activity with a single high-stock prize plus a pool of users.
+ */
+final class BenchmarkApplication {
+
+    // Effectively unlimited, so quota and stock never end a measurement early
+    static final int UNLIMITED = 1_000_000_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.data.redis.repositories.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(overrides);
+
+        // Passed as arguments so they win over application.yml
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        SpringApplication application = new SpringApplication(LuckyDrawApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(args);
+    }
+
+    static Activity seedActivity(ConfigurableApplicationContext context, double probability) {
+        Prize prize = new Prize();
+        prize.setName("Benchmark Prize");
+        prize.setTotalStock(UNLIMITED);
+        prize.setAvailableStock(UNLIMITED);
+        prize.setProbability(probability);
+
+        Prize empty = new Prize();
+        empty.setName("銘謝惠顧");
+        empty.setTotalStock(0);
+        empty.setAvailableStock(0);
+        empty.setProbability(1.0 - probability);
+
+        Activity activity = new Activity();
+        activity.setName("Benchmark Activity");
+        activity.setStartTime(LocalDateTime.now().minusDays(1));
+        activity.setEndTime(LocalDateTime.now().plusYears(1));
+        activity.setMaxDrawsPerUser(UNLIMITED);
+        activity.getPrizes().add(prize);
+        activity.getPrizes().add(empty);
+        return context.getBean(ActivityRepository.class).save(activity);
+    }
+
+    static List<Long> seedUsers(ConfigurableApplicationContext context, int count) {
+        return seedUsers(context, count, UNLIMITED);
+    }
+
+    static List<Long> seedUsers(ConfigurableApplicationContext context, int count, int drawQuota) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName("bench-" + i);
+            user.setDrawQuota(drawQuota);
+            ids.add(userRepository.save(user).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,78 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.service.DrawService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many threads drawing one always-winning prize, so every draw competes for
+ * the same stock counter. Each thread uses its own user to keep quota
+ * counters out of the picture.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ContendedDrawBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    @Param({ "database", "memory" })
+    public String stockMode;
+
+    private ConfigurableApplicationContext context;
+    private DrawService drawService;
+    private Long activityId;
+    private List<Long> userIds;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Drawer {
+        Long userId;
+
+        @Setup(Level.Trial)
+        public void setUp(ContendedDrawBenchmark benchmark) {
+            userId = benchmark.userIds.get(benchmark.nextUser.getAndIncrement() % MAX_THREADS);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of("luckydraw.stock.mode", stockMode));
+        drawService = context.getBean(DrawService.class);
+        activityId = BenchmarkApplication.seedActivity(context, 1.0).getId();
+        userIds = BenchmarkApplication.seedUsers(context, MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DrawResult> draw(Drawer drawer) {
+        return drawService.draw(drawer.userId, activityId, 1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.controller.DrawController;
+import com.amyway.luckydraw.exception.GlobalExceptionHandler;
+import com.amyway.luckydraw.interceptor.DrawRateLimitAdvice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Rejected POST /api/draw requests through Spring MVC: DrawRateLimitAdvice
+ * answering 429, or DrawService turning away users with no quota left, with
+ * and without the rejection cache. Responses come from GlobalExceptionHandler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DrawRejectionBenchmark {
+
+    private static final int USERS = 64;
+
+    // quota: DrawService rejects; rateLimit: DrawRateLimitAdvice rejects before the controller
+    @Param({ "quota", "rateLimit" })
+    public String rejectedBy;
+
+    @Param({ "0", "30000" })
+    public long rejectionCacheTtl;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private List<String> bodies;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("luckydraw.rejection-cache.ttl", rejectionCacheTtl);
+        if ("rateLimit".equals(rejectedBy)) {
+            // One draw per user per second gets through, and then fails for quota
+            overrides.put("luckydraw.rate-limit.enabled", true);
+            overrides.put("luckydraw.rate-limit.user.rate", 1);
+            overrides.put("luckydraw.rate-limit.user.burst", 1);
+        }
+        context = BenchmarkApplication.start(overrides);
+        Long activityId = BenchmarkApplication.seedActivity(context, 0.5).getId();
+        bodies = BenchmarkApplication.seedUsers(context, USERS, 0).stream()
+                .map(userId -> "{\"userId\":" + userId + ",\"activityId\":" + activityId + ",\"count\":1}")
+                .toList();
+        mockMvc = MockMvcBuilders.standaloneSetup(context.getBean(DrawController.class))
+                .setControllerAdvice(context.getBean(GlobalExceptionHandler.class),
+                        context.getBean(DrawRateLimitAdvice.class))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int draw() throws Exception {
+        String body = bodies.get(Math.floorMod(nextUser.getAndIncrement(), USERS));
+        return mockMvc.perform(post("/api/draw").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn().getResponse().getStatus();
+    }
+}
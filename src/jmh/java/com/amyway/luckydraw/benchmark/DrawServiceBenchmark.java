@@ -0,0 +1,69 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.service.DrawService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end DrawService.draw against in-memory H2: quota checks, strategy,
+ * stock reservation and draw record writes, for single and batch draws.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DrawServiceBenchmark {
+
+    private static final int USERS = 64;
+
+    @Param({ "1", "10" })
+    public int count;
+
+    @Param({ "database", "memory" })
+    public String stockMode;
+
+    private ConfigurableApplicationContext context;
+    private DrawService drawService;
+    private Long activityId;
+    private List<Long> userIds;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of("luckydraw.stock.mode", stockMode));
+        drawService = context.getBean(DrawService.class);
+        activityId = BenchmarkApplication.seedActivity(context, 0.5).getId();
+        userIds = BenchmarkApplication.seedUsers(context, USERS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DrawResult> draw() {
+        Long userId = userIds.get(Math.floorMod(nextUser.getAndIncrement(), USERS));
+        return drawService.draw(userId, activityId, count);
+    }
+}
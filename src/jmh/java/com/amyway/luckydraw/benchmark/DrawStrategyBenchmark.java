@@ -0,0 +1,71 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.service.DrawStrategy;
+import com.amyway.luckydraw.service.impl.AliasTableDrawStrategy;
+import com.amyway.luckydraw.service.impl.WeightedRandomDrawStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single strategy pick, without any database work, across prize
+ * list sizes and how much of the list is already out of stock.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DrawStrategyBenchmark {
+
+    private static final Long ACTIVITY_ID = 1L;
+
+    @Param({ "weighted", "alias" })
+    public String strategy;
+
+    @Param({ "4", "32", "256" })
+    public int prizeCount;
+
+    // NONE: everything in stock, HALF: first half sold out, ALL: only "銘謝惠顧" left
+    @Param({ "NONE", "HALF", "ALL" })
+    public String exhaustion;
+
+    private DrawStrategy drawStrategy;
+    private List<Prize> prizes;
+
+    @Setup
+    public void setUp() {
+        drawStrategy = "alias".equals(strategy) ? new AliasTableDrawStrategy() : new WeightedRandomDrawStrategy();
+
+        int soldOut = switch (exhaustion) {
+            case "HALF" -> prizeCount / 2;
+            case "ALL" -> prizeCount;
+            default -> 0;
+        };
+        prizes = new ArrayList<>(prizeCount + 1);
+        for (int i = 0; i < prizeCount; i++) {
+            int stock = i < soldOut ? 0 : 100;
+            prizes.add(new Prize((long) i + 1, "Prize " + i, 100, stock, 0.9 / prizeCount, 0));
+        }
+        prizes.add(new Prize((long) prizeCount + 1, "銘謝惠顧", 0, 0, 0.1, 0));
+    }
+
+    @Benchmark
+    public Prize draw() {
+        return drawStrategy.draw(ACTIVITY_ID, prizes);
+    }
+}
@@ -0,0 +1,115 @@
+package com.amyway.luckydraw.benchmark;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockReservationRouter;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every thread reserves one unit of the same prize per transaction, the way a
+ * winning draw does, under each stock mode. Stock never runs out, so a
+ * reservation that grants nothing is a contention fallback (the draw would be
+ * downgraded to EMPTY) and "fallbacks / reserved + fallbacks" is the fallback
+ * rate. Failed transactions, e.g. lock timeouts, are counted as errors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockReservationBenchmark {
+
+    @Param({ "database", "pessimistic", "optimistic", "memory" })
+    public String stockMode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private StockReservationStrategy strategy;
+    private Long prizeId;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long reserved;
+        public long fallbacks;
+        public long errors;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            reserved = 0;
+            fallbacks = 0;
+            errors = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // One connection per thread, so the pool is not what the threads queue on
+        context = BenchmarkApplication.start(Map.of("spring.datasource.hikari.maximum-pool-size", "64",
+                "luckydraw.warmup.enabled", "false"));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        strategy = context.getBean(StockReservationRouter.class).strategy(StockMode.of(stockMode));
+        prizeId = context.getBean(PrizeRepository.class).save(new Prize(null, "Benchmark Prize",
+                BenchmarkApplication.UNLIMITED, BenchmarkApplication.UNLIMITED, 1.0, null)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int threads01(Outcomes outcomes) {
+        return reserve(outcomes);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int threads08(Outcomes outcomes) {
+        return reserve(outcomes);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int threads64(Outcomes outcomes) {
+        return reserve(outcomes);
+    }
+
+    private int reserve(Outcomes outcomes) {
+        try {
+            int granted = transactionTemplate.execute(status -> strategy.reserve(prizeId, 1));
+            if (granted > 0) {
+                outcomes.reserved++;
+            } else {
+                outcomes.fallbacks++;
+            }
+            return granted;
+        } catch (RuntimeException e) {
+            outcomes.errors++;
+            return 0;
+        }
+    }
+}
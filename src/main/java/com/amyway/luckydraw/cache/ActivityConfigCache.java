@@ -0,0 +1,94 @@
+package com.amyway.luckydraw.cache;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of activity configuration keyed by activity id. Entries
+ * live until AdminServiceImpl evicts them after a configuration change.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityConfigCache {
+
+    private final ActivityRepository activityRepository;
+    private final PrizeRepository prizeRepository;
+
+    private final Map<Long, ActivitySnapshot> snapshots = new ConcurrentHashMap<>();
+    // Bumped by every eviction so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public Optional<ActivitySnapshot> get(Long activityId) {
+        ActivitySnapshot snapshot = snapshots.get(activityId);
+        if (snapshot != null) {
+            hits.increment();
+            return Optional.of(snapshot);
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        Optional<Activity> activity = activityRepository.findById(activityId);
+        if (activity.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Prize> prizes = prizeRepository.findByActivityId(activityId);
+        ActivitySnapshot loaded = ActivitySnapshot.of(activity.get(), prizes);
+        if (generation.get() == loadGeneration) {
+            snapshots.putIfAbsent(activityId, loaded);
+        }
+        return Optional.of(loaded);
+    }
+
+    // Stock reservation failed: keep strategies from picking the prize until the next reload
+    public void markSoldOut(Long activityId, Long prizeId) {
+        snapshots.computeIfPresent(activityId, (id, snapshot) -> snapshot.withSoldOut(prizeId));
+    }
+
+    // Evicts now and again after the admin transaction commits, so a draw
+    // cannot re-cache the configuration that is being replaced
+    public void evict(Long activityId) {
+        evictNow(activityId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(activityId);
+                }
+            });
+        }
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new Stats(snapshots.size(), hitCount, missCount, total == 0 ? 0.0 : (double) hitCount / total,
+                evictions.sum());
+    }
+
+    private void evictNow(Long activityId) {
+        generation.incrementAndGet();
+        if (snapshots.remove(activityId) != null) {
+            evictions.increment();
+        }
+    }
+
+    public record Stats(int size, long hits, long misses, double hitRate, long evictions) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.amyway.luckydraw.cache;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.StockMode;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Immutable copy of an activity and its prizes, as used by the draw path
+public record ActivitySnapshot(Long id, String name, LocalDateTime startTime, LocalDateTime endTime,
+        Integer maxDrawsPerUser, DrawMode drawMode, StockMode stockMode, List<PrizeSnapshot> prizes) {
+
+    public ActivitySnapshot {
+        prizes = List.copyOf(prizes);
+    }
+
+    public static ActivitySnapshot of(Activity activity, List<Prize> prizes) {
+        return new ActivitySnapshot(activity.getId(), activity.getName(), activity.getStartTime(),
+                activity.getEndTime(), activity.getMaxDrawsPerUser(), activity.getDrawMode(), activity.getStockMode(),
+                prizes.stream().map(PrizeSnapshot::of).toList());
+    }
+
+    // Same rule as Activity.isActive()
+    public boolean isActive() {
+        LocalDateTime now = LocalDateTime.now();
+        return (startTime == null || !now.isBefore(startTime)) &&
+                (endTime == null || !now.isAfter(endTime));
+    }
+
+    public List<Prize> newPrizes() {
+        List<Prize> copies = new ArrayList<>(prizes.size());
+        for (PrizeSnapshot prize : prizes) {
+            copies.add(prize.toPrize());
+        }
+        return copies;
+    }
+
+    public ActivitySnapshot withSoldOut(Long prizeId) {
+        List<PrizeSnapshot> updated = prizes.stream()
+                .map(p -> p.id().equals(prizeId) ? p.withAvailableStock(0) : p)
+                .toList();
+        return new ActivitySnapshot(id, name, startTime, endTime, maxDrawsPerUser, drawMode, stockMode, updated);
+    }
+}
@@ -0,0 +1,148 @@
+package com.amyway.luckydraw.cache;
+
+import com.amyway.luckydraw.exception.DrawErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived memory of draw rejections, so a user who keeps retrying after
+ * running out of quota, or against an activity that is not running, is turned
+ * away before any database work. Quota rejections are remembered with the
+ * draw count that failed: counters only grow, so any count at least as large
+ * fails too until the quota is raised or the counters are rebuilt.
+ */
+@Component
+public class DrawRejectionCache {
+
+    // limit is the quota that was exceeded, for the rejection message
+    public record Rejection(DrawErrorCode code, Integer limit, int minCount, long expiresAt) {
+    }
+
+    private record UserActivity(Long userId, Long activityId) {
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<Long, Rejection> users = new ConcurrentHashMap<>();
+    private final Map<UserActivity, Rejection> userActivities = new ConcurrentHashMap<>();
+    private final Map<Long, Rejection> activities = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+
+    public DrawRejectionCache(@Value("${luckydraw.rejection-cache.ttl:30000}") long ttlMillis,
+            @Value("${luckydraw.rejection-cache.max-entries:100000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    // The remembered rejection for this draw, or null when it has to be decided afresh
+    public Rejection find(Long userId, Long activityId, int count) {
+        if (ttlMillis <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Rejection rejection = live(users.get(userId), count, now);
+        if (rejection == null) {
+            rejection = live(activities.get(activityId), count, now);
+        }
+        if (rejection == null) {
+            rejection = live(userActivities.get(new UserActivity(userId, activityId)), count, now);
+        }
+        if (rejection != null) {
+            hits.increment();
+        }
+        return rejection;
+    }
+
+    public void rejectGlobalQuota(Long userId, Integer limit, int count) {
+        remember(users, userId, new Rejection(DrawErrorCode.GLOBAL_QUOTA_EXCEEDED, limit, count, expiry()));
+    }
+
+    public void rejectActivityQuota(Long userId, Long activityId, Integer limit, int count) {
+        remember(userActivities, new UserActivity(userId, activityId),
+                new Rejection(DrawErrorCode.ACTIVITY_QUOTA_EXCEEDED, limit, count, expiry()));
+    }
+
+    // A not-yet-started activity is only remembered until it starts
+    public void rejectInactive(Long activityId, LocalDateTime startTime) {
+        long expiresAt = expiry();
+        if (startTime != null && LocalDateTime.now().isBefore(startTime)) {
+            expiresAt = Math.min(expiresAt, startTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        remember(activities, activityId, new Rejection(DrawErrorCode.ACTIVITY_INACTIVE, null, 1, expiresAt));
+    }
+
+    // Quota changed: forget the user's global and per-activity rejections, now
+    // and again after the edit commits, like ActivityConfigCache.evict
+    public void invalidateUser(Long userId) {
+        Runnable invalidate = () -> {
+            users.remove(userId);
+            userActivities.keySet().removeIf(key -> key.userId().equals(userId));
+        };
+        invalidate.run();
+        afterCommit(invalidate);
+    }
+
+    public void invalidateActivity(Long activityId) {
+        Runnable invalidate = () -> {
+            activities.remove(activityId);
+            userActivities.keySet().removeIf(key -> key.activityId().equals(activityId));
+        };
+        invalidate.run();
+        afterCommit(invalidate);
+    }
+
+    public void invalidateAll() {
+        users.clear();
+        userActivities.clear();
+        activities.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.rejection-cache.ttl:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        users.values().removeIf(rejection -> rejection.expiresAt() <= now);
+        userActivities.values().removeIf(rejection -> rejection.expiresAt() <= now);
+        activities.values().removeIf(rejection -> rejection.expiresAt() <= now);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static Rejection live(Rejection rejection, int count, long now) {
+        return rejection != null && rejection.expiresAt() > now && count >= rejection.minCount() ? rejection : null;
+    }
+
+    // Keeps the smallest failing count; stops growing at max-entries rather than evicting
+    private <K> void remember(Map<K, Rejection> map, K key, Rejection rejection) {
+        if (ttlMillis <= 0 || (map.size() >= maxEntries && !map.containsKey(key))) {
+            return;
+        }
+        map.merge(key, rejection, (old, fresh) -> old.expiresAt() > System.currentTimeMillis()
+                && old.minCount() <= fresh.minCount() ? old : fresh);
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+}
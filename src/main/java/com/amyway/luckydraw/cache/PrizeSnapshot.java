@@ -0,0 +1,22 @@
+package com.amyway.luckydraw.cache;
+
+import com.amyway.luckydraw.domain.Prize;
+
+// Immutable copy of a prize's configuration; availableStock is as of load time
+public record PrizeSnapshot(Long id, String name, Integer totalStock, Integer availableStock,
+        Double probability, Integer version) {
+
+    public static PrizeSnapshot of(Prize prize) {
+        return new PrizeSnapshot(prize.getId(), prize.getName(), prize.getTotalStock(), prize.getAvailableStock(),
+                prize.getProbability(), prize.getVersion());
+    }
+
+    public PrizeSnapshot withAvailableStock(Integer stock) {
+        return new PrizeSnapshot(id, name, totalStock, stock, probability, version);
+    }
+
+    // Fresh detached Prize the draw loop can mutate
+    public Prize toPrize() {
+        return new Prize(id, name, totalStock, availableStock, probability, version);
+    }
+}
@@ -1,19 +1,37 @@
 package com.amyway.luckydraw.controller;
 
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
 import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
 import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.dto.ActivitySummary;
 import com.amyway.luckydraw.dto.CreateActivityRequest;
 import com.amyway.luckydraw.dto.CreatePrizeRequest;
+import com.amyway.luckydraw.dto.DrawRecordSlice;
+import com.amyway.luckydraw.dto.PrizeSummary;
 import com.amyway.luckydraw.dto.UpdatePrizeRequest;
 import com.amyway.luckydraw.service.AdminService;
+import com.amyway.luckydraw.service.ConnectionBulkhead;
+import com.amyway.luckydraw.service.DrawCounterService;
+import com.amyway.luckydraw.service.DrawRecordArchiver;
+import com.amyway.luckydraw.service.DrawRecordExporter;
+import com.amyway.luckydraw.service.DrawRecordWriter;
+import com.amyway.luckydraw.service.DrawStatsAggregator;
+import com.amyway.luckydraw.service.StockStreamService;
+import com.amyway.luckydraw.service.TicketPoolService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -26,6 +44,15 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final DrawRecordWriter drawRecordWriter;
+    private final DrawRecordExporter drawRecordExporter;
+    private final DrawCounterService drawCounterService;
+    private final DrawRecordArchiver drawRecordArchiver;
+    private final DrawStatsAggregator drawStatsAggregator;
+    private final StockStreamService stockStreamService;
+    private final ActivityConfigCache activityConfigCache;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final TicketPoolService ticketPoolService;
 
     @Operation(summary = "建立抽獎活動", description = "建立新的抽獎活動")
     @ApiResponse(responseCode = "200", description = "活動建立成功")
@@ -44,6 +71,10 @@ public class AdminController {
         if (request.getMaxDrawsPerUser() != null) {
             activity.setMaxDrawsPerUser(request.getMaxDrawsPerUser());
         }
+        if (request.getDrawMode() != null) {
+            activity.setDrawMode(request.getDrawMode());
+        }
+        activity.setStockMode(request.getStockMode());
 
         return adminService.createActivity(activity, request.getPrizeIds());
     }
@@ -55,6 +86,22 @@ public class AdminController {
         return adminService.listActivities();
     }
 
+    @Operation(summary = "分頁獲取活動列表", description = "分頁返回活動與其獎品，每頁固定兩條查詢加一條計數")
+    @ApiResponse(responseCode = "200", description = "成功返回活動分頁")
+    @GetMapping("/activities/page")
+    public org.springframework.data.domain.Page<Activity> listActivitiesPage(
+            @Parameter(description = "頁碼 (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每頁大小") @RequestParam(defaultValue = "20") int size) {
+        return adminService.listActivities(org.springframework.data.domain.PageRequest.of(page, size));
+    }
+
+    @Operation(summary = "獲取活動摘要列表", description = "以單一查詢返回活動欄位與獎品數量，不載入獎品")
+    @ApiResponse(responseCode = "200", description = "成功返回活動摘要列表")
+    @GetMapping("/activities/summary")
+    public List<ActivitySummary> listActivitySummaries() {
+        return adminService.listActivitySummaries();
+    }
+
     @Operation(summary = "建立獎品", description = "為指定活動建立新的獎品")
     @ApiResponse(responseCode = "200", description = "獎品建立成功")
     @PostMapping("/prizes")
@@ -106,6 +153,22 @@ public class AdminController {
         return adminService.listPrizes(activityId);
     }
 
+    @Operation(summary = "獲取活動獎品摘要", description = "以單一查詢返回指定活動獎品的庫存與機率欄位")
+    @ApiResponse(responseCode = "200", description = "成功返回獎品摘要")
+    @GetMapping("/activities/{activityId}/prizes/summary")
+    public List<PrizeSummary> listPrizeSummaries(
+            @Parameter(description = "活動 ID", required = true) @PathVariable Long activityId) {
+        return adminService.listPrizeSummaries(activityId);
+    }
+
+    @Operation(summary = "即時庫存推送", description = "以 Server-Sent Events 推送活動獎品剩餘庫存：先送一次 snapshot，之後每個間隔最多一則 stock 事件，只含有變動的獎品")
+    @ApiResponse(responseCode = "200", description = "事件串流")
+    @GetMapping(value = "/activities/{activityId}/stock-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStock(
+            @Parameter(description = "活動ID", required = true) @PathVariable Long activityId) {
+        return stockStreamService.subscribe(activityId);
+    }
+
     @Operation(summary = "驗證活動配置", description = "檢查活動獎品機率和是否為 100%")
     @ApiResponse(responseCode = "200", description = "驗證結果")
     @GetMapping("/activities/{activityId}/validate")
@@ -127,4 +190,85 @@ public class AdminController {
                 .of(request.getPage(), request.getSize());
         return adminService.getDrawRecords(request, pageable);
     }
+
+    @Operation(summary = "游標分頁查詢中獎記錄", description = "依抽獎時間由新到舊查詢中獎記錄，不計算總筆數，深分頁效能穩定（忽略 page 參數）")
+    @ApiResponse(responseCode = "200", description = "成功返回一頁中獎記錄與下一頁游標")
+    @GetMapping("/draw-records/keyset")
+    public DrawRecordSlice getDrawRecordsKeyset(
+            @org.springdoc.core.annotations.ParameterObject com.amyway.luckydraw.dto.DrawRecordQueryRequest request,
+            @Parameter(description = "上一頁回傳的 nextCursor，第一頁不需傳入") @RequestParam(required = false) String cursor) {
+        return adminService.getDrawRecordsAfter(request, cursor);
+    }
+
+    @Operation(summary = "匯出中獎記錄", description = "以 CSV 或 NDJSON 串流匯出符合條件的全部中獎記錄（依抽獎時間由舊到新，忽略 page/size）")
+    @ApiResponse(responseCode = "200", description = "串流輸出匯出檔")
+    @GetMapping("/draw-records/export")
+    public ResponseEntity<StreamingResponseBody> exportDrawRecords(
+            @org.springdoc.core.annotations.ParameterObject com.amyway.luckydraw.dto.DrawRecordQueryRequest request,
+            @Parameter(description = "匯出格式：csv 或 ndjson") @RequestParam(defaultValue = "csv") String format) {
+        DrawRecordExporter.Format exportFormat = DrawRecordExporter.Format.of(format);
+        StreamingResponseBody body = out -> drawRecordExporter.export(request, exportFormat, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"draw-records." + exportFormat.extension() + "\"")
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .body(body);
+    }
+
+    @Operation(summary = "中獎記錄寫入佇列狀態", description = "查詢非同步寫入佇列深度與批次寫入延遲")
+    @ApiResponse(responseCode = "200", description = "成功返回佇列狀態")
+    @GetMapping("/draw-records/pipeline")
+    public DrawRecordWriter.Stats getDrawRecordPipelineStats() {
+        return drawRecordWriter.stats();
+    }
+
+    @Operation(summary = "重建抽獎次數計數器", description = "依中獎記錄重新計算每位用戶的全域與活動抽獎次數")
+    @ApiResponse(responseCode = "200", description = "重建完成")
+    @PostMapping("/draw-counters/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDrawCounters() {
+        long counters = drawCounterService.rebuild();
+        return ResponseEntity.ok(Map.of("rebuiltCounters", counters));
+    }
+
+    @Operation(summary = "封存活動抽獎紀錄", description = "將已結束活動的抽獎紀錄移至壓縮檔並自資料庫移除")
+    @ApiResponse(responseCode = "200", description = "封存完成")
+    @PostMapping("/activities/{activityId}/archive")
+    public DrawRecordArchiver.Result archiveDrawRecords(
+            @Parameter(description = "活動ID", required = true) @PathVariable Long activityId) {
+        return drawRecordArchiver.archive(activityId);
+    }
+
+    @Operation(summary = "活動即時統計", description = "抽獎次數、各獎品中獎數、不重複用戶數（估計值）與近一小時每分鐘抽獎數，不查詢資料庫")
+    @ApiResponse(responseCode = "200", description = "成功返回統計")
+    @GetMapping("/activities/{activityId}/stats")
+    public DrawStatsAggregator.Stats getActivityStats(
+            @Parameter(description = "活動ID", required = true) @PathVariable Long activityId) {
+        return drawStatsAggregator.stats(activityId);
+    }
+
+    @Operation(summary = "活動配置快取狀態", description = "查詢活動與獎品配置快取的命中率")
+    @ApiResponse(responseCode = "200", description = "成功返回快取狀態")
+    @GetMapping("/cache/activities")
+    public ActivityConfigCache.Stats getActivityCacheStats() {
+        return activityConfigCache.stats();
+    }
+
+    @Operation(summary = "活動票池狀態", description = "查詢票池模式活動的總票數與剩餘票數")
+    @ApiResponse(responseCode = "200", description = "成功返回票池狀態")
+    @GetMapping("/activities/{id}/ticket-pool")
+    public TicketPoolService.Stats getTicketPoolStats(@PathVariable Long id) {
+        ActivitySnapshot activity = activityConfigCache.get(id)
+                .orElseThrow(() -> new RuntimeException("找不到該活動"));
+        if (activity.drawMode() != DrawMode.TICKET_POOL) {
+            throw new RuntimeException("該活動不是票池模式");
+        }
+        return ticketPoolService.stats(activity);
+    }
+
+    @Operation(summary = "資料庫連線隔艙狀態", description = "查詢抽獎請求佔用與等待資料庫連線的數量")
+    @ApiResponse(responseCode = "200", description = "成功返回隔艙狀態")
+    @GetMapping("/bulkhead")
+    public ConnectionBulkhead.Stats getBulkheadStats() {
+        return connectionBulkhead.stats();
+    }
 }
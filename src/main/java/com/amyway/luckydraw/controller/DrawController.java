@@ -2,6 +2,8 @@ package com.amyway.luckydraw.controller;
 
 import com.amyway.luckydraw.dto.DrawRequest;
 import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.service.ConnectionBulkhead;
+import com.amyway.luckydraw.service.DrawIdempotencyService;
 import com.amyway.luckydraw.service.DrawService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +15,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "抽獎 API", description = "用戶抽獎相關介面")
 
 @RestController
@@ -21,21 +25,25 @@ import org.springframework.web.bind.annotation.*;
 public class DrawController {
 
     private final DrawService drawService;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final DrawIdempotencyService drawIdempotencyService;
 
     @Operation(summary = "用戶抽獎", description = "根據活動 ID 和用戶 ID 執行抽獎操作，返回抽獎結果")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "抽獎成功", content = @Content(schema = @Schema(implementation = DrawResult.class))),
-            @ApiResponse(responseCode = "400", description = "抽獎失敗（活動不存在、用戶已達抽獎次數上限等）")
+            @ApiResponse(responseCode = "400", description = "抽獎失敗（活動不存在、用戶已達抽獎次數上限等），code 為錯誤代碼"),
+            @ApiResponse(responseCode = "409", description = "相同冪等鍵的請求仍在處理中"),
+            @ApiResponse(responseCode = "422", description = "冪等鍵過長，或已用於不同的抽獎請求"),
+            @ApiResponse(responseCode = "503", description = "系統繁忙，資料庫連線已滿")
     })
+    // Rejections, duplicates and overload are mapped to responses by GlobalExceptionHandler
     @PostMapping
-    public ResponseEntity<?> draw(@RequestBody DrawRequest request) {
-        try {
-            java.util.List<DrawResult> result = drawService.draw(request.getUserId(), request.getActivityId(),
-                    request.getCount());
-            return ResponseEntity.ok(result);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(java.util.Collections.singletonMap("error", e.getMessage()));
-        }
+    public ResponseEntity<List<DrawResult>> draw(@RequestBody DrawRequest request) {
+        // Replays are answered before taking a bulkhead permit
+        List<DrawResult> result = drawIdempotencyService.execute(request,
+                () -> connectionBulkhead.execute(() -> drawService.draw(
+                        request.getUserId(), request.getActivityId(), request.getCount())));
+        return ResponseEntity.ok(result);
     }
 
 }
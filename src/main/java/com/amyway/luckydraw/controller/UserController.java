@@ -2,6 +2,7 @@ package com.amyway.luckydraw.controller;
 
 import com.amyway.luckydraw.domain.User;
 import com.amyway.luckydraw.dto.CreateUserRequest;
+import com.amyway.luckydraw.dto.UserSummary;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,12 @@ public class UserController {
         return userService.listUsers(name);
     }
 
+    @Operation(summary = "獲取用戶摘要列表", description = "只查詢 id、名稱與抽獎配額欄位")
+    @GetMapping("/summary")
+    public List<UserSummary> listUserSummaries(@RequestParam(required = false) String name) {
+        return userService.listUserSummaries(name);
+    }
+
     @Operation(summary = "獲取指定用戶詳情")
     @GetMapping("/{id}")
     public User getUser(@PathVariable Long id) {
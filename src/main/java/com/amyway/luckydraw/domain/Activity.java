@@ -22,10 +22,22 @@ public class Activity {
 
     private Integer maxDrawsPerUser;
 
+    @Enumerated(EnumType.STRING)
+    private DrawMode drawMode = DrawMode.PROBABILITY;
+
+    // Null draws with the node's luckydraw.stock.mode
+    @Enumerated(EnumType.STRING)
+    private StockMode stockMode;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinTable(name = "activity_prizes", joinColumns = @JoinColumn(name = "activity_id"), inverseJoinColumns = @JoinColumn(name = "prize_id"))
     private final List<Prize> prizes = new ArrayList<>();
 
+    // Rows created before draw modes existed have no value
+    public DrawMode getDrawMode() {
+        return drawMode == null ? DrawMode.PROBABILITY : drawMode;
+    }
+
     // Helper to check if active
     public boolean isActive() {
         LocalDateTime now = LocalDateTime.now();
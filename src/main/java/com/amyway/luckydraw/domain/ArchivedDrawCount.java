@@ -0,0 +1,33 @@
+package com.amyway.luckydraw.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Draws moved out of the database by DrawRecordArchiver, so counters can still be rebuilt and seeded
+@Entity
+@Table(name = "archived_draw_counts", indexes = {
+        @Index(name = "idx_archived_draw_counts_user", columnList = "user_id, activity_id"),
+        @Index(name = "idx_archived_draw_counts_source", columnList = "source")
+})
+@Data
+@NoArgsConstructor
+public class ArchivedDrawCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(nullable = false)
+    private Long drawCount = 0L;
+
+    // The partition table or archive file the draws came from; archiving it again replaces its rows
+    @Column(nullable = false)
+    private String source;
+}
@@ -0,0 +1,8 @@
+package com.amyway.luckydraw.domain;
+
+public enum DrawMode {
+    // Sample prize probabilities on every draw
+    PROBABILITY,
+    // Pop the next outcome from a pool shuffled when the activity was created
+    TICKET_POOL
+}
@@ -6,6 +6,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Keyset pagination on (draw_time, id) with and without the common filters
+        @Index(name = "idx_draw_record_time", columnList = "draw_time, id"),
+        @Index(name = "idx_draw_record_activity_time", columnList = "activity_id, draw_time, id"),
+        @Index(name = "idx_draw_record_user_time", columnList = "user_id, draw_time, id"),
+        @Index(name = "idx_draw_record_win_time", columnList = "is_win, draw_time, id")
+})
 @Data
 @NoArgsConstructor
 public class DrawRecord {
@@ -0,0 +1,41 @@
+package com.amyway.luckydraw.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Catalog of draw record partition tables, see DrawRecordPartitionRouter
+@Entity
+@Table(name = "draw_record_partition", indexes = @Index(name = "idx_draw_record_partition_activity", columnList = "activity_id, partition_month"))
+@Data
+@NoArgsConstructor
+public class DrawRecordPartition {
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    // yyyyMM of the draw times the table holds
+    @Column(name = "partition_month", nullable = false)
+    private Integer month;
+
+    private LocalDateTime createdAt;
+
+    // Set once the records were moved to cold storage and the table dropped
+    private LocalDateTime archivedAt;
+
+    private Long archivedRecords;
+
+    private String archiveFile;
+
+    public DrawRecordPartition(String tableName, Long activityId, Integer month) {
+        this.tableName = tableName;
+        this.activityId = activityId;
+        this.month = month;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,21 @@
+package com.amyway.luckydraw.domain;
+
+import java.util.Locale;
+
+public enum StockMode {
+    // Conditional UPDATE ... WHERE availableStock >= quantity on the Prize row
+    DATABASE,
+    // SELECT ... FOR UPDATE on the Prize row, decremented through the entity
+    PESSIMISTIC,
+    // Read the version, UPDATE ... WHERE version = :read, retry with backoff on conflict
+    OPTIMISTIC,
+    // Striped in-memory CAS counters, single node only
+    MEMORY,
+    // Lua-scripted counters in Redis, only where luckydraw.stock.mode=redis
+    REDIS;
+
+    // luckydraw.stock.mode is written in lower case
+    public static StockMode of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
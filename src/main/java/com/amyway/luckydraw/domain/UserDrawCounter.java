@@ -0,0 +1,29 @@
+package com.amyway.luckydraw.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Materialized draw counts, so quota checks do not COUNT(*) the DrawRecord table
+@Entity
+@Table(name = "user_draw_counters", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id", "activity_id" }))
+@Data
+@NoArgsConstructor
+public class UserDrawCounter {
+
+    // activityId of the counter that tracks a user's draws across all activities
+    public static final long GLOBAL = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(nullable = false)
+    private Long drawCount = 0L;
+}
@@ -0,0 +1,23 @@
+package com.amyway.luckydraw.dto;
+
+import com.amyway.luckydraw.domain.DrawMode;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+// Read model for activity lists: the activity's own columns plus a prize count, without loading prizes
+@Schema(description = "活動摘要")
+public record ActivitySummary(Long id, String name, LocalDateTime startTime, LocalDateTime endTime,
+        Integer maxDrawsPerUser, DrawMode drawMode, long prizeCount) {
+
+    public ActivitySummary {
+        // Rows created before draw modes existed have no value
+        drawMode = drawMode == null ? DrawMode.PROBABILITY : drawMode;
+    }
+
+    // Same rule as Activity.isActive()
+    public boolean isActive() {
+        LocalDateTime now = LocalDateTime.now();
+        return (startTime == null || !now.isBefore(startTime)) && (endTime == null || !now.isAfter(endTime));
+    }
+}
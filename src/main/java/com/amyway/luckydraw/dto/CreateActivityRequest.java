@@ -1,5 +1,7 @@
 package com.amyway.luckydraw.dto;
 
+import com.amyway.luckydraw.domain.DrawMode;
+import com.amyway.luckydraw.domain.StockMode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -23,6 +25,13 @@ public class CreateActivityRequest {
     @Schema(description = "每位用戶最大抽獎次數", defaultValue = "1")
     private Integer maxDrawsPerUser;
 
+    @Schema(description = "抽獎模式：PROBABILITY 依機率抽獎；TICKET_POOL 建立活動時依庫存預先洗牌票池，每次抽獎依序取票", defaultValue = "PROBABILITY")
+    private DrawMode drawMode;
+
+    @Schema(description = "扣庫存方式：DATABASE 條件式 UPDATE；PESSIMISTIC 鎖定獎品列；OPTIMISTIC 版本號比對失敗時退避重試；"
+            + "MEMORY 單節點記憶體 CAS 計數；REDIS 需節點設定 luckydraw.stock.mode=redis。未填時使用節點的 luckydraw.stock.mode")
+    private StockMode stockMode;
+
     @Schema(description = "活動獎品 ID 列表")
     private final List<Long> prizeIds = new ArrayList<>();
 }
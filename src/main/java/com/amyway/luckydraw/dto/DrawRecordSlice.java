@@ -0,0 +1,21 @@
+package com.amyway.luckydraw.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "抽獎記錄游標分頁結果（依抽獎時間新到舊）")
+public class DrawRecordSlice {
+
+    private List<DrawRecordView> records;
+
+    @Schema(description = "是否還有下一頁")
+    private boolean hasNext;
+
+    @Schema(description = "下一頁游標，傳入 cursor 參數取得下一頁；無下一頁時為 null")
+    private String nextCursor;
+}
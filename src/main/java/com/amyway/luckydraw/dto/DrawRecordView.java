@@ -0,0 +1,22 @@
+package com.amyway.luckydraw.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "抽獎記錄")
+public class DrawRecordView {
+    private Long id;
+    private Long userId;
+    private Long activityId;
+    private Long prizeId;
+    private String prizeName;
+    private LocalDateTime drawTime;
+    private Boolean isWin;
+}
@@ -11,4 +11,7 @@ public class DrawRequest {
 
     @Schema(description = "抽獎次數", defaultValue = "1")
     private Integer count = 1;
+
+    @Schema(description = "冪等鍵（選填）：逾時重試時帶入相同值，將直接返回首次抽獎結果而不重複抽獎", maxLength = 128)
+    private String idempotencyKey;
 }
@@ -1,11 +1,15 @@
 package com.amyway.luckydraw.dto;
 
 import com.amyway.luckydraw.domain.Prize;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class DrawResult {
     private boolean isWin;
     private Prize prize;
@@ -0,0 +1,8 @@
+package com.amyway.luckydraw.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+// Read model for an activity's prize list; not a managed entity, so nothing is dirty-checked or lazily loaded
+@Schema(description = "獎品摘要")
+public record PrizeSummary(Long id, String name, Integer totalStock, Integer availableStock, Double probability) {
+}
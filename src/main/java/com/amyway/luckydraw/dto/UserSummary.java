@@ -0,0 +1,11 @@
+package com.amyway.luckydraw.dto;
+
+// Closed interface projection: Spring Data selects only these columns
+public interface UserSummary {
+
+    Long getId();
+
+    String getName();
+
+    Integer getDrawQuota();
+}
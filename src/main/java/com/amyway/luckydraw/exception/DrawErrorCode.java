@@ -0,0 +1,13 @@
+package com.amyway.luckydraw.exception;
+
+// Why a draw was turned away; returned to clients as the "code" field next to the message
+public enum DrawErrorCode {
+    USER_NOT_FOUND,
+    GLOBAL_QUOTA_EXCEEDED,
+    ACTIVITY_NOT_FOUND,
+    ACTIVITY_INACTIVE,
+    ACTIVITY_QUOTA_EXCEEDED,
+    NO_PRIZES,
+    SOLD_OUT,
+    EMPTY_PRIZE_MISSING
+}
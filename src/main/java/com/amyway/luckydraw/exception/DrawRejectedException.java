@@ -0,0 +1,21 @@
+package com.amyway.luckydraw.exception;
+
+/**
+ * A business rejection of a draw: quota used up, activity not running, prizes
+ * gone. Under bot traffic most draw requests end here, so, like
+ * {@link RateLimitedException}, no stack trace is captured; the code says
+ * where it came from.
+ */
+public class DrawRejectedException extends RuntimeException {
+
+    private final DrawErrorCode code;
+
+    public DrawRejectedException(DrawErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public DrawErrorCode getCode() {
+        return code;
+    }
+}
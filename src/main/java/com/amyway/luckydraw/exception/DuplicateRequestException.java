@@ -0,0 +1,9 @@
+package com.amyway.luckydraw.exception;
+
+// Thrown when a retry arrives while the request with the same idempotency key is still running
+public class DuplicateRequestException extends RuntimeException {
+
+    public DuplicateRequestException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.amyway.luckydraw.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.ObjectError;
@@ -32,6 +33,44 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimitedExceptions(RateLimitedException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("message", "Too Many Requests");
+        body.put("errors", List.of(ex.getMessage()));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    @ExceptionHandler(DrawRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleDrawRejectedExceptions(DrawRejectedException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("message", "Draw Rejected");
+        body.put("code", ex.getCode());
+        body.put("errors", List.of(ex.getMessage()));
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    @ExceptionHandler(DuplicateRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateRequestExceptions(DuplicateRequestException ex) {
+        return error(HttpStatus.CONFLICT, "Duplicate Request", ex);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidIdempotencyKeyExceptions(InvalidIdempotencyKeyException ex) {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, "Invalid Idempotency Key", ex);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceBusyExceptions(ServiceBusyException ex) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Busy", ex);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeExceptions(RuntimeException ex) {
         Map<String, Object> body = new HashMap<>();
@@ -43,4 +82,13 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message, RuntimeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", status.value());
+        body.put("message", message);
+        body.put("errors", List.of(ex.getMessage()));
+
+        return ResponseEntity.status(status).body(body);
+    }
 }
@@ -0,0 +1,9 @@
+package com.amyway.luckydraw.exception;
+
+// Thrown for an idempotency key that is too long or was already used for a different draw request
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.amyway.luckydraw.exception;
+
+/**
+ * Thrown when a draw request exceeds its rate limit. Rejections are the
+ * common case under a flood, so no stack trace is captured.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
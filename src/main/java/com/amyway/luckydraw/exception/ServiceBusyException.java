@@ -0,0 +1,10 @@
+package com.amyway.luckydraw.exception;
+
+// Thrown when a request is shed before it can queue for a database connection;
+// shedding happens under overload, so no stack trace is captured
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,38 @@
+package com.amyway.luckydraw.interceptor;
+
+import com.amyway.luckydraw.dto.DrawRequest;
+import com.amyway.luckydraw.service.DrawRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Rate limits draw requests once their body is parsed and before the
+ * controller runs; AuthInterceptor cannot, because the user and activity
+ * ids are only in the body.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class DrawRateLimitAdvice extends RequestBodyAdviceAdapter {
+
+    private final DrawRateLimiter drawRateLimiter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        return DrawRequest.class.equals(targetType);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+            Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        DrawRequest request = (DrawRequest) body;
+        drawRateLimiter.check(request.getUserId(), request.getActivityId());
+        return body;
+    }
+}
@@ -0,0 +1,122 @@
+package com.amyway.luckydraw.metrics;
+
+import com.amyway.luckydraw.domain.Prize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the draw hot path. End-to-end request latency is already covered
+ * by http.server.requests; these break a draw down by phase and outcome.
+ */
+@Component
+public class DrawMetrics {
+
+    public enum Phase {
+        USER_LOOKUP("user_lookup"),
+        QUOTA_CHECK("quota_check"),
+        ACTIVITY_LOAD("activity_load"),
+        PRIZE_LOAD("prize_load"),
+        STRATEGY("strategy"),
+        STOCK_RESERVATION("stock_reservation"),
+        RECORD_SAVE("record_save");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // Set while the startup warm-up runs its synthetic draws on this thread
+    private static final ThreadLocal<Boolean> MUTED = ThreadLocal.withInitial(() -> false);
+
+    private final MeterRegistry registry;
+    // Takes the muted draws' meters, so they run the same code without reaching the exported ones
+    private final MeterRegistry mutedRegistry = new SimpleMeterRegistry();
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Phase, Timer> mutedPhaseTimers = new EnumMap<>(Phase.class);
+
+    public DrawMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, phaseTimer(phase, registry));
+            mutedPhaseTimers.put(phase, phaseTimer(phase, mutedRegistry));
+        }
+    }
+
+    public Timer timer(Phase phase) {
+        return MUTED.get() ? mutedPhaseTimers.get(phase) : phaseTimers.get(phase);
+    }
+
+    // Runs action without its draws showing up in wins, rejections or phase latencies
+    public <T> T muted(Supplier<T> action) {
+        MUTED.set(true);
+        try {
+            return action.get();
+        } finally {
+            MUTED.remove();
+        }
+    }
+
+    public void win(Prize prize) {
+        Counter.builder("luckydraw.draw.wins")
+                .description("Draws that won a prize")
+                .tag("prize.id", String.valueOf(prize.getId()))
+                .tag("prize", String.valueOf(prize.getName()))
+                .register(registry())
+                .increment();
+    }
+
+    // Draws downgraded to "銘謝惠顧" because the stock reservation came up short
+    public void stockFallback(Long prizeId, int count) {
+        Counter.builder("luckydraw.draw.stock.fallbacks")
+                .description("Draws downgraded to the empty prize after losing the stock race")
+                .tag("prize.id", String.valueOf(prizeId))
+                .register(registry())
+                .increment(count);
+    }
+
+    // scope: global (User.drawQuota) or activity (Activity.maxDrawsPerUser)
+    public void quotaRejected(String scope) {
+        Counter.builder("luckydraw.draw.quota.rejections")
+                .description("Draw requests rejected by a quota limit")
+                .tag("scope", scope)
+                .register(registry())
+                .increment();
+    }
+
+    // Retried draw requests answered from the idempotency store
+    public void idempotentReplay() {
+        Counter.builder("luckydraw.draw.idempotent.replays")
+                .description("Draw requests answered with the results of an earlier request with the same key")
+                .register(registry())
+                .increment();
+    }
+
+    // scope: user or activity, see luckydraw.rate-limit
+    public void rateLimited(String scope) {
+        Counter.builder("luckydraw.draw.rate-limited")
+                .description("Draw requests rejected with 429 by a rate limit")
+                .tag("scope", scope)
+                .register(registry())
+                .increment();
+    }
+
+    private MeterRegistry registry() {
+        return MUTED.get() ? mutedRegistry : registry;
+    }
+
+    private static Timer phaseTimer(Phase phase, MeterRegistry registry) {
+        return Timer.builder("luckydraw.draw.phase")
+                .description("Time spent in each phase of DrawService.draw")
+                .tag("phase", phase.tag)
+                .register(registry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.amyway.luckydraw.metrics;
+
+import com.amyway.luckydraw.service.DrawRecordWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * DOWN while committed draw records sit in spill files instead of the
+ * database, or once any could not even be spilled; shown as drawRecordWriter
+ * under /actuator/health.
+ */
+@Component
+@RequiredArgsConstructor
+public class DrawRecordWriterHealthIndicator implements HealthIndicator {
+
+    private final DrawRecordWriter drawRecordWriter;
+
+    @Override
+    public Health health() {
+        DrawRecordWriter.Stats stats = drawRecordWriter.stats();
+        Health.Builder builder = stats.spilledRecords() > 0 || stats.droppedRecords() > 0
+                ? Health.down()
+                : Health.up();
+        return builder.withDetail("queueDepth", stats.queueDepth())
+                .withDetail("failedFlushes", stats.failedFlushes())
+                .withDetail("spilledRecords", stats.spilledRecords())
+                .withDetail("droppedRecords", stats.droppedRecords())
+                .build();
+    }
+}
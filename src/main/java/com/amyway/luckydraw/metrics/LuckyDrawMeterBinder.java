@@ -0,0 +1,92 @@
+package com.amyway.luckydraw.metrics;
+
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.DrawRejectionCache;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.ConnectionBulkhead;
+import com.amyway.luckydraw.service.DrawRecordWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gauges over state the draw path keeps elsewhere: remaining stock per prize,
+ * the record writer queue, the activity config and rejection caches and the
+ * connection bulkhead.
+ */
+@Component
+@RequiredArgsConstructor
+public class LuckyDrawMeterBinder implements MeterBinder {
+
+    private final PrizeRepository prizeRepository;
+    private final DrawRecordWriter drawRecordWriter;
+    private final ActivityConfigCache activityConfigCache;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final DrawRejectionCache drawRejectionCache;
+
+    private volatile MultiGauge prizeStock;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        prizeStock = MultiGauge.builder("luckydraw.prize.stock.remaining")
+                .description("Prize.availableStock as of the last refresh; redis and memory stock modes "
+                        + "lag by their write-back interval")
+                .register(registry);
+
+        Gauge.builder("luckydraw.draw-record.queue.depth", drawRecordWriter, w -> w.stats().queueDepth())
+                .description("Draw records waiting for the write-behind writer")
+                .register(registry);
+        FunctionCounter.builder("luckydraw.draw-record.failed-flushes", drawRecordWriter, w -> w.stats().failedFlushes())
+                .description("Draw record batches spilled to disk after repeated insert failures")
+                .register(registry);
+        Gauge.builder("luckydraw.draw-record.spilled", drawRecordWriter, w -> w.stats().spilledRecords())
+                .description("Draw records in spill files waiting to be inserted again")
+                .register(registry);
+        FunctionCounter.builder("luckydraw.draw-record.dropped", drawRecordWriter, w -> w.stats().droppedRecords())
+                .description("Draw records lost because a failed batch could not be spilled either")
+                .register(registry);
+
+        FunctionCounter.builder("luckydraw.cache.activity.requests", activityConfigCache, c -> c.stats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("luckydraw.cache.activity.requests", activityConfigCache, c -> c.stats().misses())
+                .tag("result", "miss")
+                .register(registry);
+
+        FunctionCounter.builder("luckydraw.cache.rejection.hits", drawRejectionCache, DrawRejectionCache::hits)
+                .description("Draws rejected from remembered quota or activity rejections")
+                .register(registry);
+
+        Gauge.builder("luckydraw.bulkhead.in-use", connectionBulkhead, b -> b.stats().inUse())
+                .description("Draws holding a connection bulkhead permit")
+                .register(registry);
+        FunctionCounter.builder("luckydraw.bulkhead.rejected", connectionBulkhead, b -> b.stats().rejected())
+                .description("Draws rejected with 503 by the connection bulkhead")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.metrics.stock-refresh-interval:15000}")
+    public void refreshPrizeStock() {
+        MultiGauge gauge = prizeStock;
+        if (gauge == null) {
+            return;
+        }
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (Prize prize : prizeRepository.findAll()) {
+            int stock = prize.getAvailableStock() == null ? 0 : prize.getAvailableStock();
+            rows.add(MultiGauge.Row.of(Tags.of("prize.id", String.valueOf(prize.getId()),
+                    "prize", String.valueOf(prize.getName())), stock));
+        }
+        gauge.register(rows, true);
+    }
+}
@@ -1,13 +1,46 @@
 package com.amyway.luckydraw.repository;
 
 import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.dto.ActivitySummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
     List<Activity> findByPrizesId(Long prizeId);
+
+    // Activities sharing the prize, each with all of its prizes, in one statement
+    @Query("SELECT a FROM Activity a LEFT JOIN FETCH a.prizes "
+            + "WHERE a.id IN (SELECT s.id FROM Activity s JOIN s.prizes sp WHERE sp.id = :prizeId)")
+    List<Activity> findWithPrizesByPrizeId(@Param("prizeId") Long prizeId);
+
+    @Query("SELECT a FROM Activity a LEFT JOIN FETCH a.prizes ORDER BY a.id")
+    List<Activity> findAllWithPrizes();
+
+    // Paging a fetch join would page in memory, so a page of ids is read first
+    @Query(value = "SELECT a.id FROM Activity a", countQuery = "SELECT COUNT(a) FROM Activity a")
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    @Query("SELECT a FROM Activity a LEFT JOIN FETCH a.prizes WHERE a.id IN :ids")
+    List<Activity> findWithPrizesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Same rule as Activity.isActive()
+    @Query("SELECT a FROM Activity a WHERE (a.startTime IS NULL OR a.startTime <= :now) AND (a.endTime IS NULL OR a.endTime >= :now)")
+    List<Activity> findActive(@Param("now") LocalDateTime now);
+
+    List<Activity> findByEndTimeBefore(LocalDateTime time);
+
+    // One statement for the whole list; prizes are only counted
+    @Query("SELECT new com.amyway.luckydraw.dto.ActivitySummary(a.id, a.name, a.startTime, a.endTime, "
+            + "a.maxDrawsPerUser, a.drawMode, COUNT(p)) FROM Activity a LEFT JOIN a.prizes p "
+            + "GROUP BY a.id, a.name, a.startTime, a.endTime, a.maxDrawsPerUser, a.drawMode ORDER BY a.id")
+    List<ActivitySummary> findSummaries();
 }
@@ -0,0 +1,22 @@
+package com.amyway.luckydraw.repository;
+
+import com.amyway.luckydraw.domain.DrawRecordPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DrawRecordPartitionRepository extends JpaRepository<DrawRecordPartition, String> {
+
+    // Live partitions matching the filters; a null filter matches everything
+    @Query("SELECT p FROM DrawRecordPartition p WHERE p.archivedAt IS NULL"
+            + " AND (:activityId IS NULL OR p.activityId = :activityId)"
+            + " AND (:fromMonth IS NULL OR p.month >= :fromMonth)"
+            + " AND (:toMonth IS NULL OR p.month <= :toMonth)"
+            + " ORDER BY p.month, p.activityId")
+    List<DrawRecordPartition> findLive(@Param("activityId") Long activityId, @Param("fromMonth") Integer fromMonth,
+            @Param("toMonth") Integer toMonth);
+}
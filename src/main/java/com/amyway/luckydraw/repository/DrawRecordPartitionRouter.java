@@ -0,0 +1,184 @@
+package com.amyway.luckydraw.repository;
+
+import com.amyway.luckydraw.domain.DrawRecordPartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which tables hold draw records. With
+ * luckydraw.draw-record.partitioning.enabled every activity gets one table per
+ * month, draw_record_&lt;activityId&gt;_&lt;yyyyMM&gt;, created on first write and
+ * listed in draw_record_partition; reads only visit the tables their activity
+ * and time filters can match, and an ended activity's tables can be archived
+ * and dropped whole. Otherwise everything is the single draw_record table.
+ * Records written to draw_record before partitioning was turned on stay there,
+ * so reads always include it alongside the partitions.
+ * <p>
+ * Partitioned records get ids from {@link #nextId()} instead of IDENTITY, so
+ * ids stay unique and roughly time ordered across tables and nodes.
+ */
+@Slf4j
+@Component
+public class DrawRecordPartitionRouter {
+
+    public static final String UNPARTITIONED = "draw_record";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // Same columns as the DrawRecord entity's table; ids come from nextId()
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS %1$s ("
+            + "id BIGINT PRIMARY KEY, user_id BIGINT, activity_id BIGINT, prize_id BIGINT, "
+            + "prize_name VARCHAR(255), draw_time TIMESTAMP, is_win BOOLEAN)";
+    private static final String CREATE_TIME_INDEX_SQL = "CREATE INDEX IF NOT EXISTS %1$s_time ON %1$s (draw_time, id)";
+    private static final String CREATE_USER_INDEX_SQL = "CREATE INDEX IF NOT EXISTS %1$s_user_time ON %1$s (user_id, draw_time, id)";
+
+    // Record ids: milliseconds since 2024-01-01T00:00Z, 10 bits of node id, 12 bits of sequence
+    private static final long ID_EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DrawRecordPartitionRepository partitionRepository;
+    private final TransactionTemplate newTransaction;
+    private final boolean enabled;
+    private final long nodeId;
+    // Tables this node knows exist; reads always ask the catalog, which sees other nodes' tables
+    private final Set<String> created = ConcurrentHashMap.newKeySet();
+    // Last id handed out, without the node bits: timestamp << SEQUENCE_BITS | sequence
+    private final AtomicLong lastId = new AtomicLong();
+
+    public DrawRecordPartitionRouter(JdbcTemplate jdbcTemplate, DrawRecordPartitionRepository partitionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${luckydraw.draw-record.partitioning.enabled:false}") boolean enabled,
+            @Value("${luckydraw.draw-record.partitioning.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId >= 1L << NODE_BITS) {
+            throw new IllegalArgumentException("luckydraw.draw-record.partitioning.node-id must be 0-1023");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionRepository = partitionRepository;
+        // DDL commits implicitly on some databases, so it must not run on the caller's connection
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The table a record drawn at drawTime for the activity goes to, created if needed
+    public String tableFor(Long activityId, LocalDateTime drawTime) {
+        if (!enabled) {
+            return UNPARTITIONED;
+        }
+        if (activityId == null) {
+            throw new IllegalArgumentException("Partitioned draw records need an activity id");
+        }
+        int month = month(drawTime);
+        String table = "draw_record_" + activityId + "_" + month;
+        if (!created.contains(table)) {
+            create(table, activityId, month);
+        }
+        return table;
+    }
+
+    /**
+     * Live tables that can hold records of the activity drawn between from and
+     * to; null arguments do not prune. draw_record always comes first, since it
+     * keeps whatever was drawn before partitioning was enabled.
+     */
+    public List<String> tablesFor(Long activityId, LocalDateTime from, LocalDateTime to) {
+        if (!enabled) {
+            return List.of(UNPARTITIONED);
+        }
+        List<String> tables = new ArrayList<>();
+        tables.add(UNPARTITIONED);
+        partitionRepository.findLive(activityId, from == null ? null : month(from), to == null ? null : month(to))
+                .forEach(partition -> tables.add(partition.getTableName()));
+        return tables;
+    }
+
+    /**
+     * A FROM clause item named draw_record over the (user_id, activity_id) of
+     * every record of the activity, or of all activities when it is null.
+     */
+    public String recordSource(Long activityId) {
+        List<String> tables = tablesFor(activityId, null, null);
+        if (tables.size() == 1) {
+            return UNPARTITIONED;
+        }
+        return tables.stream()
+                .map(table -> "SELECT user_id, activity_id FROM " + table)
+                .collect(Collectors.joining(" UNION ALL ", "(", ") draw_record"));
+    }
+
+    public List<DrawRecordPartition> livePartitions(Long activityId) {
+        return partitionRepository.findLive(activityId, null, null);
+    }
+
+    // Records the archive in the catalog first, so a failed drop leaves an unused table rather than lost rows
+    public void dropArchived(DrawRecordPartition partition, long records, String archiveFile) {
+        partition.setArchivedAt(LocalDateTime.now());
+        partition.setArchivedRecords(records);
+        partition.setArchiveFile(archiveFile);
+        newTransaction.executeWithoutResult(status -> partitionRepository.save(partition));
+        created.remove(partition.getTableName());
+        newTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE " + partition.getTableName()));
+    }
+
+    public long nextId() {
+        long next = lastId.updateAndGet(last -> {
+            long now = System.currentTimeMillis() - ID_EPOCH_MILLIS;
+            // Same or earlier millisecond (clock stepped back): continue the sequence,
+            // borrowing the next millisecond once it runs out
+            return Math.max(now << SEQUENCE_BITS, last + 1);
+        });
+        return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                | nodeId << SEQUENCE_BITS
+                | (next & SEQUENCE_MASK);
+    }
+
+    private synchronized void create(String table, Long activityId, int month) {
+        if (created.contains(table)) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.execute(CREATE_TABLE_SQL.formatted(table));
+                jdbcTemplate.execute(CREATE_TIME_INDEX_SQL.formatted(table));
+                jdbcTemplate.execute(CREATE_USER_INDEX_SQL.formatted(table));
+                DrawRecordPartition partition = partitionRepository.findById(table)
+                        .orElseGet(() -> new DrawRecordPartition(table, activityId, month));
+                // Late records for an archived partition bring it back; the next archive run moves them
+                partition.setArchivedAt(null);
+                partitionRepository.save(partition);
+            });
+            log.info("Created draw record partition {}", table);
+        } catch (DataIntegrityViolationException e) {
+            // Another node registered it first
+            log.debug("Draw record partition {} already registered", table, e);
+        }
+        created.add(table);
+    }
+
+    private static int month(LocalDateTime time) {
+        return Integer.parseInt(MONTH.format(time));
+    }
+}
@@ -0,0 +1,200 @@
+package com.amyway.luckydraw.repository;
+
+import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC reads of draw_record for admin queries that must not degrade with
+ * table size: seek pagination on (draw_time, id) backed by the DrawRecord
+ * indexes, forward-only streaming for exports, no COUNT(*) and no entity
+ * hydration. With partitioning, each query runs against the partition tables
+ * its filters select, merged with UNION ALL.
+ */
+@Repository
+public class DrawRecordQueryRepository {
+
+    // Rows per driver round-trip when streaming; bounds memory regardless of result size
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String COLUMNS = "r.id, r.user_id, r.activity_id, r.prize_id, r.prize_name, r.draw_time, r.is_win";
+
+    private static final RowMapper<DrawRecordView> VIEW_MAPPER = (rs, rowNum) -> new DrawRecordView(
+            rs.getLong("id"),
+            rs.getObject("user_id", Long.class),
+            rs.getObject("activity_id", Long.class),
+            rs.getObject("prize_id", Long.class),
+            rs.getString("prize_name"),
+            rs.getTimestamp("draw_time") == null ? null : rs.getTimestamp("draw_time").toLocalDateTime(),
+            rs.getObject("is_win", Boolean.class));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final DrawRecordPartitionRouter partitionRouter;
+
+    public DrawRecordQueryRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource,
+            DrawRecordPartitionRouter partitionRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionRouter = partitionRouter;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(EXPORT_FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    // Newest first, strictly after the (drawTime, id) position when one is given
+    public List<DrawRecordView> findPage(DrawRecordQueryRequest filter, LocalDateTime afterDrawTime, Long afterId,
+            int limit) {
+        List<String> tables = tables(filter);
+        if (tables.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> selects = new ArrayList<>(tables.size());
+        for (String table : tables) {
+            StringBuilder sql = select(table, filter, params);
+            if (afterDrawTime != null && afterId != null) {
+                sql.append(" AND (r.draw_time < :afterDrawTime OR (r.draw_time = :afterDrawTime AND r.id < :afterId))");
+            }
+            selects.add(sql.append(" ORDER BY r.draw_time DESC, r.id DESC LIMIT :limit").toString());
+        }
+        if (afterDrawTime != null && afterId != null) {
+            params.addValue("afterDrawTime", Timestamp.valueOf(afterDrawTime));
+            params.addValue("afterId", afterId);
+        }
+        params.addValue("limit", limit);
+        String sql = selects.size() == 1 ? selects.get(0) : union(selects, "draw_time DESC, id DESC LIMIT :limit");
+        return jdbcTemplate.query(sql, params, VIEW_MAPPER);
+    }
+
+    // Newest first by position, for the page-numbered admin listing over partitions
+    public List<DrawRecordView> findOffsetPage(DrawRecordQueryRequest filter, long offset, int limit) {
+        List<String> tables = tables(filter);
+        if (tables.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("limit", limit);
+        params.addValue("offset", offset);
+        if (tables.size() == 1) {
+            String sql = select(tables.get(0), filter, params)
+                    .append(" ORDER BY r.draw_time DESC, r.id DESC LIMIT :limit OFFSET :offset").toString();
+            return jdbcTemplate.query(sql, params, VIEW_MAPPER);
+        }
+        // No partition can contribute more than offset + limit rows to the page
+        List<String> selects = tables.stream()
+                .map(table -> select(table, filter, params)
+                        .append(" ORDER BY r.draw_time DESC, r.id DESC LIMIT :partitionLimit").toString())
+                .toList();
+        params.addValue("partitionLimit", offset + limit);
+        return jdbcTemplate.query(union(selects, "draw_time DESC, id DESC LIMIT :limit OFFSET :offset"), params,
+                VIEW_MAPPER);
+    }
+
+    public long count(DrawRecordQueryRequest filter) {
+        long total = 0;
+        for (String table : tables(filter)) {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            String sql = select(table, filter, params).toString().replace("SELECT " + COLUMNS, "SELECT COUNT(*)");
+            Long count = jdbcTemplate.queryForObject(sql, params, Long.class);
+            total += count == null ? 0 : count;
+        }
+        return total;
+    }
+
+    // Oldest first, one row at a time. Runs in a read-only transaction because
+    // drivers such as PostgreSQL only honour the fetch size with autocommit off.
+    @Transactional(readOnly = true)
+    public void stream(DrawRecordQueryRequest filter, Consumer<DrawRecordView> consumer) {
+        List<String> tables = tables(filter);
+        if (tables.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> selects = tables.stream()
+                .map(table -> select(table, filter, params).toString())
+                .toList();
+        String sql = selects.size() == 1
+                ? selects.get(0) + " ORDER BY r.draw_time, r.id"
+                : union(selects, "draw_time, id");
+        RowCallbackHandler handler = rs -> consumer.accept(VIEW_MAPPER.mapRow(rs, rs.getRow()));
+        streamingJdbcTemplate.query(sql, params, handler);
+    }
+
+    // One table's records of an activity, oldest first, for archival
+    @Transactional(readOnly = true)
+    public void streamTable(String table, Long activityId, Consumer<DrawRecordView> consumer) {
+        DrawRecordQueryRequest filter = new DrawRecordQueryRequest();
+        filter.setActivityId(activityId);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = select(table, filter, params).append(" ORDER BY r.draw_time, r.id").toString();
+        RowCallbackHandler handler = rs -> consumer.accept(VIEW_MAPPER.mapRow(rs, rs.getRow()));
+        streamingJdbcTemplate.query(sql, params, handler);
+    }
+
+    private List<String> tables(DrawRecordQueryRequest filter) {
+        return partitionRouter.tablesFor(filter.getActivityId(),
+                filter.getStartTime() == null ? null : filter.getStartTime().toLocalDateTime(),
+                filter.getEndTime() == null ? null : filter.getEndTime().toLocalDateTime());
+    }
+
+    // Merges per-partition selects and sorts the result by output column names
+    static String union(List<String> selects, String orderBy) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM (");
+        for (int i = 0; i < selects.size(); i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT * FROM (").append(selects.get(i)).append(") p").append(i);
+        }
+        return sql.append(") u ORDER BY ").append(orderBy).toString();
+    }
+
+    // Shared filter translation; users is only joined for the name filter
+    static StringBuilder select(String table, DrawRecordQueryRequest filter, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM ").append(table).append(" r");
+        boolean byName = filter.getUserName() != null && !filter.getUserName().isEmpty();
+        if (byName) {
+            sql.append(" JOIN users u ON u.id = r.user_id");
+        }
+        sql.append(" WHERE 1 = 1");
+        if (filter.getActivityId() != null) {
+            sql.append(" AND r.activity_id = :activityId");
+            params.addValue("activityId", filter.getActivityId());
+        }
+        if (filter.getUserId() != null) {
+            sql.append(" AND r.user_id = :userId");
+            params.addValue("userId", filter.getUserId());
+        }
+        if (byName) {
+            sql.append(" AND u.name LIKE :userName");
+            params.addValue("userName", "%" + filter.getUserName() + "%");
+        }
+        if (filter.getIsWin() != null) {
+            sql.append(" AND r.is_win = :isWin");
+            params.addValue("isWin", filter.getIsWin());
+        }
+        if (filter.getStartTime() != null) {
+            sql.append(" AND r.draw_time >= :startTime");
+            params.addValue("startTime", Timestamp.valueOf(filter.getStartTime().toLocalDateTime()));
+        }
+        if (filter.getEndTime() != null) {
+            sql.append(" AND r.draw_time <= :endTime");
+            params.addValue("endTime", Timestamp.valueOf(filter.getEndTime().toLocalDateTime()));
+        }
+        return sql;
+    }
+}
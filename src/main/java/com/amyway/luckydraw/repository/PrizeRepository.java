@@ -1,12 +1,15 @@
 package com.amyway.luckydraw.repository;
 
 import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.dto.PrizeSummary;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,8 +22,46 @@ public interface PrizeRepository extends JpaRepository<Prize, Long> {
     @org.springframework.data.jpa.repository.Query("SELECT p FROM Activity a JOIN a.prizes p WHERE a.id = :activityId")
     List<Prize> findByActivityId(@org.springframework.data.repository.query.Param("activityId") Long activityId);
 
+    @Query("SELECT new com.amyway.luckydraw.dto.PrizeSummary(p.id, p.name, p.totalStock, p.availableStock, "
+            + "p.probability) FROM Activity a JOIN a.prizes p WHERE a.id = :activityId")
+    List<PrizeSummary> findSummariesByActivityId(@Param("activityId") Long activityId);
+
     // Optimistic locking update
     @Modifying
     @Query("UPDATE Prize p SET p.availableStock = p.availableStock - 1 WHERE p.id = :id AND p.availableStock > 0")
     int decrementStock(@Param("id") Long id);
+
+    // Aggregated decrement for batch draws: all-or-nothing for the requested quantity
+    @Modifying
+    @Query("UPDATE Prize p SET p.availableStock = p.availableStock - :quantity WHERE p.id = :id AND p.availableStock >= :quantity")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT p.availableStock FROM Prize p WHERE p.id = :id")
+    Integer findAvailableStockById(@Param("id") Long id);
+
+    // Row lock held until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Prize p WHERE p.id = :id")
+    Optional<Prize> findByIdForUpdate(@Param("id") Long id);
+
+    // Rows inserted outside JPA have no version yet; they count as version 0
+    @Query("SELECT new com.amyway.luckydraw.repository.PrizeRepository$VersionedStock(p.availableStock, "
+            + "COALESCE(p.version, 0)) FROM Prize p WHERE p.id = :id")
+    Optional<VersionedStock> findVersionedStockById(@Param("id") Long id);
+
+    // Compare-and-set on the @Version column: 0 rows when someone else updated the prize since it was read
+    @Modifying
+    @Query("UPDATE Prize p SET p.availableStock = p.availableStock - :quantity, p.version = COALESCE(p.version, 0) + 1 "
+            + "WHERE p.id = :id AND COALESCE(p.version, 0) = :version AND p.availableStock >= :quantity")
+    int decrementStockIfVersion(@Param("id") Long id, @Param("quantity") int quantity, @Param("version") int version);
+
+    // Write-back of decrements already granted by an external stock counter. Commits on its
+    // own: the counter marks them written, so a caller's rollback must not undo them
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE Prize p SET p.availableStock = p.availableStock - :quantity WHERE p.id = :id")
+    int decrementStockBy(@Param("id") Long id, @Param("quantity") int quantity);
+
+    record VersionedStock(Integer availableStock, Integer version) {
+    }
 }
@@ -0,0 +1,23 @@
+package com.amyway.luckydraw.repository;
+
+import com.amyway.luckydraw.domain.UserDrawCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserDrawCounterRepository extends JpaRepository<UserDrawCounter, Long> {
+
+    // Quota check and increment in one statement, like decrementStock
+    @Modifying
+    @Query("UPDATE UserDrawCounter c SET c.drawCount = c.drawCount + :count "
+            + "WHERE c.userId = :userId AND c.activityId = :activityId AND c.drawCount + :count <= :limit")
+    int incrementWithinLimit(@Param("userId") Long userId, @Param("activityId") Long activityId,
+            @Param("count") long count, @Param("limit") long limit);
+
+    Optional<UserDrawCounter> findByUserIdAndActivityId(Long userId, Long activityId);
+}
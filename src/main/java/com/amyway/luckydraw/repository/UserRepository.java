@@ -10,4 +10,9 @@ import java.util.List;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByNameContaining(String name);
+
+    // Projected reads, e.g. UserSummary
+    <T> List<T> findByNameContaining(String name, Class<T> type);
+
+    <T> List<T> findAllBy(Class<T> type);
 }
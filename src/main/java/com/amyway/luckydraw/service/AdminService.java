@@ -5,6 +5,9 @@ import com.amyway.luckydraw.domain.Prize;
 
 import com.amyway.luckydraw.domain.DrawRecord;
 import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordSlice;
+import com.amyway.luckydraw.dto.ActivitySummary;
+import com.amyway.luckydraw.dto.PrizeSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -15,6 +18,12 @@ public interface AdminService {
 
     List<Activity> listActivities();
 
+    // Sorted by the pageable's sort, or by id when it has none
+    Page<Activity> listActivities(Pageable pageable);
+
+    // Single-query read models for list screens
+    List<ActivitySummary> listActivitySummaries();
+
     Prize createPrize(Prize prize);
 
     Prize updatePrize(Long id, Prize prize);
@@ -23,7 +32,12 @@ public interface AdminService {
 
     List<Prize> listPrizes(Long activityId);
 
+    List<PrizeSummary> listPrizeSummaries(Long activityId);
+
     boolean validateActivityConfig(Long activityId);
 
     Page<DrawRecord> getDrawRecords(DrawRecordQueryRequest request, Pageable pageable);
+
+    // Keyset pagination on (drawTime, id), newest first; cursor is null for the first page
+    DrawRecordSlice getDrawRecordsAfter(DrawRecordQueryRequest request, String cursor);
 }
@@ -0,0 +1,66 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of draws holding or waiting for a JDBC connection. With
+ * virtual threads Tomcat no longer limits concurrency, so without this
+ * thousands of requests would park inside Hikari and fail only after its
+ * connection timeout. Excess requests wait briefly here and are then rejected.
+ */
+@Component
+public class ConnectionBulkhead {
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public ConnectionBulkhead(
+            @Value("${luckydraw.bulkhead.enabled:${spring.threads.virtual.enabled:false}}") boolean enabled,
+            @Value("${luckydraw.bulkhead.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${luckydraw.bulkhead.acquire-timeout:1000}") long acquireTimeoutMillis) {
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceBusyException("系統繁忙，請稍後再試");
+        }
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(enabled, maxConcurrent, maxConcurrent - permits.availablePermits(),
+                permits.getQueueLength(), rejected.sum());
+    }
+
+    public record Stats(boolean enabled, int maxConcurrent, int inUse, int waiting, long rejected) {
+    }
+}
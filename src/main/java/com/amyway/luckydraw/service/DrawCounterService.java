@@ -0,0 +1,140 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.DrawRejectionCache;
+import com.amyway.luckydraw.domain.UserDrawCounter;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.amyway.luckydraw.repository.UserDrawCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Per-user and per-(user, activity) draw counters kept in user_draw_counters.
+ * Counters are incremented in the draw transaction and seeded from DrawRecord,
+ * plus whatever DrawRecordArchiver moved out, the first time a user draws.
+ */
+@Slf4j
+@Service
+public class DrawCounterService {
+
+    // SQLSTATE class for integrity constraint violations, e.g. the unique (user_id, activity_id)
+    private static final String INTEGRITY_VIOLATION_CLASS = "23";
+
+    // %s is the record source from DrawRecordPartitionRouter: draw_record itself, or with its partitions.
+    // Archived draws are gone from there but still count, through their totals in archived_draw_counts.
+    private static final String COUNT_SOURCE = "(SELECT user_id, activity_id, 1 AS draws FROM %s "
+            + "UNION ALL SELECT user_id, activity_id, draw_count AS draws FROM archived_draw_counts) d";
+
+    private static final String SEED_GLOBAL_SQL = "INSERT INTO user_draw_counters (user_id, activity_id, draw_count) "
+            + "SELECT ?, " + UserDrawCounter.GLOBAL + ", COALESCE(SUM(draws), 0) FROM " + COUNT_SOURCE
+            + " WHERE user_id = ?";
+
+    private static final String SEED_ACTIVITY_SQL = "INSERT INTO user_draw_counters (user_id, activity_id, draw_count) "
+            + "SELECT ?, ?, COALESCE(SUM(draws), 0) FROM " + COUNT_SOURCE + " WHERE user_id = ? AND activity_id = ?";
+
+    private static final String REBUILD_GLOBAL_SQL = "INSERT INTO user_draw_counters (user_id, activity_id, draw_count) "
+            + "SELECT user_id, " + UserDrawCounter.GLOBAL + ", SUM(draws) FROM " + COUNT_SOURCE
+            + " WHERE user_id IS NOT NULL GROUP BY user_id";
+
+    private static final String REBUILD_ACTIVITY_SQL = "INSERT INTO user_draw_counters (user_id, activity_id, draw_count) "
+            + "SELECT user_id, activity_id, SUM(draws) FROM " + COUNT_SOURCE
+            + " WHERE user_id IS NOT NULL AND activity_id IS NOT NULL GROUP BY user_id, activity_id";
+
+    private final UserDrawCounterRepository counterRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DrawRejectionCache drawRejectionCache;
+    private final DrawRecordPartitionRouter partitionRouter;
+
+    public DrawCounterService(UserDrawCounterRepository counterRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, DrawRejectionCache drawRejectionCache,
+            DrawRecordPartitionRouter partitionRouter) {
+        this.counterRepository = counterRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.drawRejectionCache = drawRejectionCache;
+        this.partitionRouter = partitionRouter;
+    }
+
+    // Adds count to the counter unless that would exceed limit; runs in the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryIncrement(Long userId, long activityId, int count, long limit) {
+        if (counterRepository.incrementWithinLimit(userId, activityId, count, limit) > 0) {
+            return true;
+        }
+        if (counterRepository.findByUserIdAndActivityId(userId, activityId).isPresent()) {
+            return false;
+        }
+        seed(userId, activityId);
+        return counterRepository.incrementWithinLimit(userId, activityId, count, limit) > 0;
+    }
+
+    // Recomputes every counter from DrawRecord plus the archived totals; draws made meanwhile may be
+    // miscounted, so run it off-peak.
+    public long rebuild() {
+        Long rebuilt = transactionTemplate.execute(status -> {
+            counterRepository.deleteAllInBatch();
+            String source = partitionRouter.recordSource(null);
+            int global = jdbcTemplate.update(REBUILD_GLOBAL_SQL.formatted(source));
+            int perActivity = jdbcTemplate.update(REBUILD_ACTIVITY_SQL.formatted(source));
+            log.info("Rebuilt draw counters: {} users, {} user/activity pairs", global, perActivity);
+            return (long) global + perActivity;
+        });
+        // Counters may have gone down, so remembered quota rejections no longer hold
+        drawRejectionCache.invalidateAll();
+        return rebuilt;
+    }
+
+    @Scheduled(cron = "${luckydraw.draw-counter.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    // Runs under a JDBC savepoint on the draw transaction's connection: no second pooled
+    // connection is needed, and losing the insert race to a concurrent draw does not abort the draw
+    private void seed(Long userId, long activityId) {
+        String source = partitionRouter.recordSource(activityId == UserDrawCounter.GLOBAL ? null : activityId);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement ps = prepareSeed(connection, source, userId, activityId)) {
+                ps.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (e.getSQLState() == null || !e.getSQLState().startsWith(INTEGRITY_VIOLATION_CLASS)) {
+                    throw e;
+                }
+                log.debug("Draw counter for user {} activity {} already seeded", userId, activityId);
+            }
+            return null;
+        });
+    }
+
+    private PreparedStatement prepareSeed(Connection connection, String source, Long userId, long activityId)
+            throws SQLException {
+        PreparedStatement ps;
+        if (activityId == UserDrawCounter.GLOBAL) {
+            ps = connection.prepareStatement(SEED_GLOBAL_SQL.formatted(source));
+            ps.setLong(1, userId);
+            ps.setLong(2, userId);
+        } else {
+            ps = connection.prepareStatement(SEED_ACTIVITY_SQL.formatted(source));
+            ps.setLong(1, userId);
+            ps.setLong(2, activityId);
+            ps.setLong(3, userId);
+            ps.setLong(4, activityId);
+        }
+        return ps;
+    }
+}
@@ -0,0 +1,63 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.dto.DrawRequest;
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.exception.DuplicateRequestException;
+import com.amyway.luckydraw.exception.InvalidIdempotencyKeyException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Replays the results of a draw request retried with the same idempotency
+ * key instead of drawing again. Keys are scoped to the user; only committed
+ * draws are remembered, so a failed draw can be retried with the same key.
+ */
+@Service
+@RequiredArgsConstructor
+public class DrawIdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyStore idempotencyStore;
+    private final DrawMetrics drawMetrics;
+
+    public List<DrawResult> execute(DrawRequest request, Supplier<List<DrawResult>> draw) {
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return draw.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("冪等鍵長度不可超過 " + MAX_KEY_LENGTH + " 個字元");
+        }
+
+        String key = request.getUserId() + ":" + idempotencyKey;
+        int count = (request.getCount() == null || request.getCount() < 1) ? 1 : request.getCount();
+        String fingerprint = request.getActivityId() + ":" + count;
+
+        IdempotencyStore.Entry existing = idempotencyStore.claim(key, fingerprint);
+        if (existing != null) {
+            if (!fingerprint.equals(existing.fingerprint())) {
+                throw new InvalidIdempotencyKeyException("冪等鍵已用於不同的抽獎請求");
+            }
+            if (existing.results() == null) {
+                throw new DuplicateRequestException("相同的抽獎請求正在處理中，請稍後重試");
+            }
+            drawMetrics.idempotentReplay();
+            return existing.results();
+        }
+
+        List<DrawResult> results;
+        try {
+            results = draw.get();
+        } catch (RuntimeException e) {
+            idempotencyStore.release(key);
+            throw e;
+        }
+        idempotencyStore.complete(key, fingerprint, results);
+        return results;
+    }
+}
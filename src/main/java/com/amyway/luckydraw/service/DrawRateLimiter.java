@@ -0,0 +1,56 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.exception.RateLimitedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user and per-activity limits on draw requests, checked before the
+ * request reaches DrawService. Off unless luckydraw.rate-limit.enabled is
+ * set; a rate of 0 turns a scope off.
+ */
+@Service
+public class DrawRateLimiter {
+
+    private final RateLimiter rateLimiter;
+    private final DrawMetrics drawMetrics;
+    private final boolean enabled;
+    private final RateLimiter.Limit userLimit;
+    private final RateLimiter.Limit activityLimit;
+
+    public DrawRateLimiter(RateLimiter rateLimiter, DrawMetrics drawMetrics,
+            @Value("${luckydraw.rate-limit.enabled:false}") boolean enabled,
+            @Value("${luckydraw.rate-limit.user.rate:5}") double userRate,
+            @Value("${luckydraw.rate-limit.user.burst:10}") int userBurst,
+            @Value("${luckydraw.rate-limit.activity.rate:0}") double activityRate,
+            @Value("${luckydraw.rate-limit.activity.burst:0}") int activityBurst) {
+        this.rateLimiter = rateLimiter;
+        this.drawMetrics = drawMetrics;
+        this.enabled = enabled;
+        this.userLimit = userRate > 0 ? RateLimiter.Limit.of(userRate, userBurst) : null;
+        this.activityLimit = activityRate > 0 ? RateLimiter.Limit.of(activityRate, activityBurst) : null;
+    }
+
+    public void check(Long userId, Long activityId) {
+        if (!enabled) {
+            return;
+        }
+        if (userLimit != null && userId != null) {
+            acquire("user:" + userId, userLimit, "user", "抽獎請求過於頻繁，請稍後再試");
+        }
+        if (activityLimit != null && activityId != null) {
+            acquire("activity:" + activityId, activityLimit, "activity", "活動抽獎人數過多，請稍後再試");
+        }
+    }
+
+    private void acquire(String key, RateLimiter.Limit limit, String scope, String message) {
+        long waitNanos = rateLimiter.tryAcquire(key, limit);
+        if (waitNanos > 0) {
+            drawMetrics.rateLimited(scope);
+            throw new RateLimitedException(message, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawRecordPartition;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.amyway.luckydraw.repository.DrawRecordQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the draw records of ended activities out of the database into gzipped
+ * CSV files, in the same format as the CSV export, under
+ * luckydraw.draw-record.archive.dir. A partitioned activity loses its tables
+ * one at a time after each is written out; records in draw_record, including
+ * those drawn before partitioning was enabled, are deleted from it. Archived
+ * records no longer show up in queries or exports, but their per-user totals
+ * stay in archived_draw_counts so draw quotas still count them.
+ */
+@Slf4j
+@Service
+public class DrawRecordArchiver {
+
+    // Draws that started just before the end time may still be committing
+    private static final long SETTLE_MINUTES = 1;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String DELETE_UNPARTITIONED_SQL = "DELETE FROM draw_record WHERE activity_id = ? AND id <= ?";
+    // Per-user totals of what is about to leave the database; %s is the table being archived
+    private static final String COUNT_ARCHIVED_SQL = "INSERT INTO archived_draw_counts (user_id, activity_id, draw_count, source) "
+            + "SELECT user_id, activity_id, COUNT(*), ? FROM %s "
+            + "WHERE activity_id = ? AND id <= ? AND user_id IS NOT NULL GROUP BY user_id, activity_id";
+    private static final String DELETE_ARCHIVED_COUNTS_SQL = "DELETE FROM archived_draw_counts WHERE source = ?";
+
+    public record Result(Long activityId, long records, List<String> files) {
+    }
+
+    private final ActivityRepository activityRepository;
+    private final DrawRecordPartitionRouter partitionRouter;
+    private final DrawRecordQueryRepository drawRecordQueryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final long afterDays;
+
+    public DrawRecordArchiver(ActivityRepository activityRepository, DrawRecordPartitionRouter partitionRouter,
+            DrawRecordQueryRepository drawRecordQueryRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${luckydraw.draw-record.archive.dir:data/draw-record-archive}") String directory,
+            @Value("${luckydraw.draw-record.archive.after-days:30}") long afterDays) {
+        this.activityRepository = activityRepository;
+        this.partitionRouter = partitionRouter;
+        this.drawRecordQueryRepository = drawRecordQueryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Paths.get(directory);
+        this.afterDays = afterDays;
+    }
+
+    public Result archive(Long activityId) {
+        Activity activity = activityRepository.findById(activityId)
+                .orElseThrow(() -> new RuntimeException("找不到該活動"));
+        if (activity.getEndTime() == null
+                || !activity.getEndTime().isBefore(LocalDateTime.now().minusMinutes(SETTLE_MINUTES))) {
+            throw new RuntimeException("活動尚未結束，無法封存");
+        }
+        List<String> files = new ArrayList<>();
+        // Partitioned activities may still have records from before partitioning in draw_record
+        long records = archiveUnpartitioned(activityId, files);
+        if (partitionRouter.isEnabled()) {
+            for (DrawRecordPartition partition : partitionRouter.livePartitions(activityId)) {
+                String table = partition.getTableName();
+                Path file = file(activityId, table);
+                long written = write(table, activityId, file, new long[1]);
+                // Keyed by table, so archiving it again after a failed drop does not count it twice
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(DELETE_ARCHIVED_COUNTS_SQL, table);
+                    jdbcTemplate.update(COUNT_ARCHIVED_SQL.formatted(table), table, activityId, Long.MAX_VALUE);
+                });
+                partitionRouter.dropArchived(partition, written, file.toString());
+                files.add(file.toString());
+                records += written;
+            }
+        }
+        log.info("Archived {} draw records of activity {} to {}", records, activityId, files);
+        return new Result(activityId, records, files);
+    }
+
+    @Scheduled(cron = "${luckydraw.draw-record.archive.cron:-}")
+    public void archiveEnded() {
+        for (Activity activity : activityRepository.findByEndTimeBefore(LocalDateTime.now().minusDays(afterDays))) {
+            try {
+                archive(activity.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to archive draw records of activity {}", activity.getId(), e);
+            }
+        }
+    }
+
+    private long archiveUnpartitioned(Long activityId, List<String> files) {
+        Path file = file(activityId, DrawRecordPartitionRouter.UNPARTITIONED);
+        long[] maxId = new long[1];
+        long records = write(DrawRecordPartitionRouter.UNPARTITIONED, activityId, file, maxId);
+        if (records == 0) {
+            deleteQuietly(file);
+        } else {
+            // Only what was written out; anything committed since stays for the next run
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(COUNT_ARCHIVED_SQL.formatted(DrawRecordPartitionRouter.UNPARTITIONED),
+                        file.toString(), activityId, maxId[0]);
+                jdbcTemplate.update(DELETE_UNPARTITIONED_SQL, activityId, maxId[0]);
+            });
+            files.add(file.toString());
+        }
+        return records;
+    }
+
+    // Written to a temporary file first so a crash never leaves a truncated archive behind
+    private long write(String table, Long activityId, Path file, long[] maxId) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] count = new long[1];
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), StandardCharsets.UTF_8))) {
+                writer.write(DrawRecordExporter.CSV_HEADER);
+                writer.write("\r\n");
+                drawRecordQueryRepository.streamTable(table, activityId, record -> {
+                    try {
+                        writer.write(DrawRecordExporter.csvRow(record));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                    maxId[0] = Math.max(maxId[0], record.getId());
+                });
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            deleteQuietly(tmp);
+            throw new RuntimeException("封存抽獎紀錄失敗：" + file, e);
+        }
+        return count[0];
+    }
+
+    private Path file(Long activityId, String table) {
+        return directory.resolve("activity-" + activityId)
+                .resolve(table + "-" + FILE_TIME.format(LocalDateTime.now()) + ".csv.gz");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}", file, e);
+        }
+    }
+}
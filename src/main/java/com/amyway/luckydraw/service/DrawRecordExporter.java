@@ -0,0 +1,133 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordView;
+import com.amyway.luckydraw.repository.DrawRecordQueryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes matching draw records straight from a forward-only JDBC cursor to an
+ * output stream, so heap use does not depend on how many rows are exported.
+ */
+@Component
+@RequiredArgsConstructor
+public class DrawRecordExporter {
+
+    static final String CSV_HEADER = "id,user_id,activity_id,prize_id,prize_name,draw_time,is_win";
+
+    private final DrawRecordQueryRepository drawRecordQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("不支援的匯出格式：" + value);
+        }
+    }
+
+    public void export(DrawRecordQueryRequest filter, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == Format.CSV) {
+                writeCsv(filter, writer);
+            } else {
+                writeNdjson(filter, writer);
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(DrawRecordQueryRequest filter, Writer writer) throws IOException {
+        // BOM so Excel opens the UTF-8 prize names correctly
+        writer.write('\uFEFF');
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        drawRecordQueryRepository.stream(filter, record -> {
+            try {
+                writer.write(csvRow(record));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(DrawRecordQueryRequest filter, Writer writer) {
+        // Leave closing and flushing to us, otherwise every row hits the socket
+        ObjectWriter rowWriter = objectMapper.writerFor(DrawRecordView.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        drawRecordQueryRepository.stream(filter, record -> {
+            try {
+                rowWriter.writeValue(writer, record);
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static String csvRow(DrawRecordView record) {
+        return String.join(",",
+                value(record.getId()),
+                value(record.getUserId()),
+                value(record.getActivityId()),
+                value(record.getPrizeId()),
+                escape(record.getPrizeName()),
+                value(record.getDrawTime()),
+                value(record.getIsWin())) + "\r\n";
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    // RFC 4180 quoting
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,388 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists draw records with JDBC batch inserts, which Hibernate cannot do for
+ * IDENTITY keys. By default a draw's records are inserted as one batch inside
+ * the draw transaction.
+ * <p>
+ * With write-behind enabled, committed draws append to a bounded queue
+ * instead and a single writer thread drains it in batches.
+ * <p>
+ * When the queue stays full for longer than the offer timeout the caller
+ * writes its records itself, so records are never dropped for capacity.
+ * Records still queued when the process dies are lost.
+ * <p>
+ * A batch that still fails after a few attempts is spilled to a file under
+ * luckydraw.draw-record.write-behind.spill-dir and inserted again on a
+ * schedule and on startup; until then the writer reports health DOWN.
+ * <p>
+ * With partitioning enabled each record goes to the table
+ * {@link DrawRecordPartitionRouter} picks for its activity and draw month.
+ */
+@Slf4j
+@Component
+public class DrawRecordWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO draw_record "
+            + "(user_id, activity_id, prize_id, prize_name, draw_time, is_win) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Partition tables have no IDENTITY column; the router hands out ids
+    private static final String PARTITION_INSERT_SQL = "INSERT INTO %s "
+            + "(id, user_id, activity_id, prize_id, prize_name, draw_time, is_win) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String SPILL_GLOB = "draw-records-*.json";
+
+    public record Stats(int queueDepth, int capacity, long flushedRecords, long flushes,
+            double lastFlushMillis, double maxFlushMillis, long synchronousWrites, long failedFlushes,
+            long spilledRecords, long droppedRecords) {
+    }
+
+    // A spilled record; the draw time is ISO text so the file needs no Jackson time module
+    record SpilledRecord(Long id, Long userId, Long activityId, Long prizeId, String prizeName, String drawTime,
+            Boolean isWin) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DrawRecordPartitionRouter partitionRouter;
+    private final ObjectMapper objectMapper;
+    private final Timer flushTimer;
+    private final boolean enabled;
+    private final boolean virtualThreads;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final BlockingQueue<DrawRecord> queue;
+    private final Path spillDir;
+
+    private final AtomicLong flushedRecords = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final LongAdder synchronousWrites = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    // Records waiting in spill files; only ever written under spillLock
+    private final AtomicLong spilledRecords = new AtomicLong();
+    // Records lost because they could not even be spilled
+    private final LongAdder droppedRecords = new LongAdder();
+    private final Object spillLock = new Object();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public DrawRecordWriter(JdbcTemplate jdbcTemplate, DrawRecordPartitionRouter partitionRouter,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${luckydraw.draw-record.write-behind.enabled:false}") boolean enabled,
+            @Value("${luckydraw.draw-record.write-behind.capacity:10000}") int capacity,
+            @Value("${luckydraw.draw-record.write-behind.batch-size:500}") int batchSize,
+            @Value("${luckydraw.draw-record.write-behind.offer-timeout:50}") long offerTimeoutMillis,
+            @Value("${luckydraw.draw-record.write-behind.spill-dir:data/draw-record-spill}") String spillDir,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionRouter = partitionRouter;
+        this.objectMapper = objectMapper;
+        this.flushTimer = Timer.builder("luckydraw.draw-record.flush")
+                .description("Successful batch inserts of queued draw records, including caller fallbacks")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.virtualThreads = virtualThreads;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.spillDir = Paths.get(spillDir);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Inserts the records now, or queues them once the surrounding draw
+    // transaction has committed when write-behind is enabled
+    public void write(List<DrawRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!enabled) {
+            insertBatch(records);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(records);
+            }
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(), flushedRecords.get(),
+                flushes.get(), lastFlushNanos.get() / 1_000_000.0, maxFlushNanos.get() / 1_000_000.0,
+                synchronousWrites.sum(), failedFlushes.sum(), spilledRecords.get(), droppedRecords.sum());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Batches a previous run spilled before it stopped
+        synchronized (spillLock) {
+            long pending = 0;
+            for (Path file : spillFiles()) {
+                try {
+                    pending += readSpilled(file).size();
+                } catch (IOException e) {
+                    log.error("Cannot read spilled draw records {}", file, e);
+                }
+            }
+            spilledRecords.set(pending);
+        }
+        replaySpilled();
+        running = true;
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        writerThread = builder.name("draw-record-writer").start(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // Anything appended after the writer exited
+        List<DrawRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    private void enqueue(List<DrawRecord> records) {
+        for (int i = 0; i < records.size(); i++) {
+            boolean queued;
+            try {
+                // Backpressure: wait for the writer before giving up on the queue
+                queued = queue.offer(records.get(i), offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                synchronousWrites.add(records.size() - i);
+                flush(records.subList(i, records.size()));
+                return;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<DrawRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DrawRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // stop() drains whatever is left
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<DrawRecord> records) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                insertBatch(records);
+                long elapsed = System.nanoTime() - start;
+                flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                lastFlushNanos.set(elapsed);
+                maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+                flushes.incrementAndGet();
+                flushedRecords.addAndGet(records.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Draw record batch insert failed (attempt {}/{})", attempt, MAX_ATTEMPTS, e);
+            }
+        }
+        failedFlushes.increment();
+        spill(records);
+    }
+
+    // Inserts the spilled batches, oldest first, and stops at the first that still fails
+    @Scheduled(fixedDelayString = "${luckydraw.draw-record.write-behind.spill-retry-interval:30000}")
+    public void replaySpilled() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (spillLock) {
+            for (Path file : spillFiles()) {
+                List<DrawRecord> records;
+                try {
+                    records = readSpilled(file);
+                } catch (IOException e) {
+                    log.error("Cannot read spilled draw records {}", file, e);
+                    return;
+                }
+                try {
+                    insertBatch(records);
+                    Files.delete(file);
+                } catch (RuntimeException | IOException e) {
+                    log.warn("Spilled draw records {} still cannot be inserted", file, e);
+                    return;
+                }
+                spilledRecords.addAndGet(-records.size());
+                flushedRecords.addAndGet(records.size());
+                log.info("Inserted {} spilled draw records from {}", records.size(), file);
+            }
+        }
+    }
+
+    // Written to a temporary file first so a crash never leaves a truncated batch behind
+    private void spill(List<DrawRecord> records) {
+        Path file = spillDir.resolve("draw-records-" + System.currentTimeMillis() + "-" + UUID.randomUUID() + ".json");
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillDir.toAbsolutePath());
+                objectMapper.writeValue(tmp.toFile(), records.stream().map(DrawRecordWriter::toSpilled).toList());
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                spilledRecords.addAndGet(records.size());
+                log.error("Spilled {} draw records to {} after {} failed attempts", records.size(), file, MAX_ATTEMPTS);
+            } catch (IOException e) {
+                droppedRecords.add(records.size());
+                log.error("Dropping {} draw records: insert failed {} times and spilling to {} failed",
+                        records.size(), MAX_ATTEMPTS, file, e);
+            }
+        }
+    }
+
+    private List<Path> spillFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(spillDir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDir, SPILL_GLOB)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Cannot list spilled draw records in {}", spillDir, e);
+        }
+        // Names start with the spill time
+        files.sort(null);
+        return files;
+    }
+
+    private List<DrawRecord> readSpilled(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), new TypeReference<List<SpilledRecord>>() {
+        }).stream().map(DrawRecordWriter::fromSpilled).toList();
+    }
+
+    private static SpilledRecord toSpilled(DrawRecord record) {
+        return new SpilledRecord(record.getId(), record.getUser() == null ? null : record.getUser().getId(),
+                record.getActivityId(), record.getPrizeId(), record.getPrizeName(),
+                record.getDrawTime() == null ? null : record.getDrawTime().toString(), record.getIsWin());
+    }
+
+    private static DrawRecord fromSpilled(SpilledRecord spilled) {
+        DrawRecord record = new DrawRecord();
+        record.setId(spilled.id());
+        if (spilled.userId() != null) {
+            User user = new User();
+            user.setId(spilled.userId());
+            record.setUser(user);
+        }
+        record.setActivityId(spilled.activityId());
+        record.setPrizeId(spilled.prizeId());
+        record.setPrizeName(spilled.prizeName());
+        record.setDrawTime(spilled.drawTime() == null ? null : LocalDateTime.parse(spilled.drawTime()));
+        record.setIsWin(spilled.isWin());
+        return record;
+    }
+
+    private void insertBatch(List<DrawRecord> records) {
+        if (partitionRouter.isEnabled()) {
+            insertPartitioned(records);
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, batchSize, (ps, record) -> {
+            ps.setObject(1, record.getUser() == null ? null : record.getUser().getId());
+            ps.setObject(2, record.getActivityId());
+            ps.setObject(3, record.getPrizeId());
+            ps.setString(4, record.getPrizeName());
+            ps.setTimestamp(5, Timestamp.valueOf(record.getDrawTime()));
+            ps.setObject(6, record.getIsWin());
+        });
+    }
+
+    // One batch per partition table
+    private void insertPartitioned(List<DrawRecord> records) {
+        Map<String, List<DrawRecord>> byTable = new LinkedHashMap<>();
+        for (DrawRecord record : records) {
+            byTable.computeIfAbsent(partitionRouter.tableFor(record.getActivityId(), record.getDrawTime()),
+                    table -> new ArrayList<>()).add(record);
+        }
+        byTable.forEach((table, tableRecords) -> jdbcTemplate.batchUpdate(PARTITION_INSERT_SQL.formatted(table),
+                tableRecords, batchSize, (ps, record) -> {
+                    // A retried batch keeps its ids
+                    if (record.getId() == null) {
+                        record.setId(partitionRouter.nextId());
+                    }
+                    ps.setLong(1, record.getId());
+                    ps.setObject(2, record.getUser() == null ? null : record.getUser().getId());
+                    ps.setObject(3, record.getActivityId());
+                    ps.setObject(4, record.getPrizeId());
+                    ps.setString(5, record.getPrizeName());
+                    ps.setTimestamp(6, Timestamp.valueOf(record.getDrawTime()));
+                    ps.setObject(7, record.getIsWin());
+                }));
+    }
+}
@@ -1,110 +1,179 @@
 package com.amyway.luckydraw.service;
 
-import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.cache.DrawRejectionCache;
+import com.amyway.luckydraw.domain.DrawMode;
 import com.amyway.luckydraw.domain.DrawRecord;
 import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.UserDrawCounter;
 import com.amyway.luckydraw.dto.DrawResult;
-import com.amyway.luckydraw.repository.ActivityRepository;
-import com.amyway.luckydraw.repository.DrawRecordRepository;
-import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.exception.DrawErrorCode;
+import com.amyway.luckydraw.exception.DrawRejectedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import com.amyway.luckydraw.metrics.DrawMetrics.Phase;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DrawService {
 
-    private final ActivityRepository activityRepository;
-    private final PrizeRepository prizeRepository;
-    private final DrawRecordRepository drawRecordRepository;
     private final com.amyway.luckydraw.repository.UserRepository userRepository; // Inject User Repo
-    private final jakarta.persistence.EntityManager entityManager; // Inject EntityManager
+    private final ActivityConfigCache activityConfigCache;
     private final DrawStrategy drawStrategy;
+    private final StockReservationRouter stockReservationRouter;
+    private final DrawRecordWriter drawRecordWriter;
+    private final DrawCounterService drawCounterService;
+    private final DrawMetrics drawMetrics;
+    private final TicketPoolService ticketPoolService;
+    private final DrawRejectionCache drawRejectionCache;
+    private final DrawStatsAggregator drawStatsAggregator;
+    private final StockStreamService stockStreamService;
 
     @Transactional
     public List<DrawResult> draw(Long userId, Long activityId, Integer count) {
         int drawCount = (count == null || count < 1) ? 1 : count;
 
-        // 0. Check User Validity & Global Quota
-        com.amyway.luckydraw.domain.User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("找不到該用戶"));
+        // Repeat of a recently rejected draw: answer from memory, before any database work
+        DrawRejectionCache.Rejection cached = drawRejectionCache.find(userId, activityId, drawCount);
+        if (cached != null) {
+            throw rejection(cached.code(), cached.limit(), drawCount);
+        }
+
+        // 0. Check User Validity & Global Quota (counters are rolled back with the draw)
+        com.amyway.luckydraw.domain.User user = drawMetrics.timer(Phase.USER_LOOKUP)
+                .record(() -> userRepository.findById(userId))
+                .orElseThrow(() -> new DrawRejectedException(DrawErrorCode.USER_NOT_FOUND, "找不到該用戶"));
 
-        long totalUserDraws = drawRecordRepository.countByUser_Id(userId);
-        if (totalUserDraws + drawCount > user.getDrawQuota()) {
-            throw new RuntimeException("用戶已達全域抽獎配額上限 (" + user.getDrawQuota()
-                    + ")。無法再抽 " + drawCount + " 次。");
+        if (!drawMetrics.timer(Phase.QUOTA_CHECK).record(() -> drawCounterService.tryIncrement(
+                userId, UserDrawCounter.GLOBAL, drawCount, user.getDrawQuota()))) {
+            drawRejectionCache.rejectGlobalQuota(userId, user.getDrawQuota(), drawCount);
+            throw rejection(DrawErrorCode.GLOBAL_QUOTA_EXCEEDED, user.getDrawQuota(), drawCount);
         }
 
-        // 1. Check Activity Validity
-        Activity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new RuntimeException("找不到該活動"));
+        // 1. Check Activity Validity (cached configuration snapshot)
+        ActivitySnapshot activity = drawMetrics.timer(Phase.ACTIVITY_LOAD)
+                .record(() -> activityConfigCache.get(activityId))
+                .orElseThrow(() -> new DrawRejectedException(DrawErrorCode.ACTIVITY_NOT_FOUND, "找不到該活動"));
 
         if (!activity.isActive()) {
-            throw new RuntimeException("活動未啟用");
+            drawRejectionCache.rejectInactive(activityId, activity.startTime());
+            throw rejection(DrawErrorCode.ACTIVITY_INACTIVE, null, drawCount);
         }
 
         // 2. Check User Limits (Per Activity)
-        long userActivityDrawCount = drawRecordRepository.countByUser_IdAndActivityId(userId, activityId);
-        if (userActivityDrawCount + drawCount > activity.getMaxDrawsPerUser()) {
-            throw new RuntimeException(
-                    "用戶已達此活動的抽獎次數上限。無法再抽 " + drawCount + " 次。");
+        if (!drawMetrics.timer(Phase.QUOTA_CHECK).record(() -> drawCounterService.tryIncrement(
+                userId, activityId, drawCount, activity.maxDrawsPerUser()))) {
+            drawRejectionCache.rejectActivityQuota(userId, activityId, activity.maxDrawsPerUser(), drawCount);
+            throw rejection(DrawErrorCode.ACTIVITY_QUOTA_EXCEEDED, activity.maxDrawsPerUser(), drawCount);
         }
 
-        // 3. Get Prizes (Fetch once)
-        List<Prize> prizes = prizeRepository.findByActivityId(activityId);
-        if (prizes == null || prizes.isEmpty()) {
-            throw new RuntimeException("配置錯誤：未找到獎品");
+        // 3. Get Prizes: detached copies of the snapshot. We modify 'availableStock'
+        // in memory for the batch loop ONLY, relying on the stock reservation
+        // strategy for the actual stock update.
+        List<Prize> prizes = drawMetrics.timer(Phase.PRIZE_LOAD).record(activity::newPrizes);
+        if (prizes.isEmpty()) {
+            throw new DrawRejectedException(DrawErrorCode.NO_PRIZES, "配置錯誤：未找到獎品");
         }
 
-        // Detach prizes to avoid dirty checking overwriting our optimistic lock updates
-        // We want to modify 'availableStock' in memory for the batch loop ONLY,
-        // relying on 'decrementStock' for the actual DB update.
-        for (Prize prize : prizes) {
-            entityManager.detach(prize);
-        }
-
-        List<DrawResult> results = new java.util.ArrayList<>();
-
-        // Loop for batch execution
+        // 4. Select every outcome in memory first. The in-memory stock keeps one
+        // batch from picking more units of a prize than the snapshot holds.
+        // Ticket pool activities take the next tickets of their pre-shuffled pool.
+        Timer.Sample selection = Timer.start();
+        boolean ticketPool = activity.drawMode() == DrawMode.TICKET_POOL;
+        List<Long> tickets = ticketPool ? ticketPoolService.draw(activity, drawCount) : null;
+        List<Prize> outcomes = new ArrayList<>(drawCount);
+        Map<Long, Integer> demand = new LinkedHashMap<>();
         for (int i = 0; i < drawCount; i++) {
-            Prize selectedPrize = drawStrategy.draw(prizes);
+            Prize selectedPrize = ticketPool
+                    ? ticketPrize(tickets.get(i), prizes)
+                    : drawStrategy.draw(activityId, prizes);
 
             if (selectedPrize == null) {
-                throw new RuntimeException("活動獎品已送完：無此可用獎品");
+                throw new DrawRejectedException(DrawErrorCode.SOLD_OUT, "活動獎品已送完：無此可用獎品");
             }
 
-            // 4. Stock Decrement (Optimistic Lock)
-            if (!"銘謝惠顧".equals(selectedPrize.getName())) {
-                int updatedRows = prizeRepository.decrementStock(selectedPrize.getId());
-                if (updatedRows > 0) {
-                    // Success: Update in-memory object for next iteration in batch
-                    if (selectedPrize.getAvailableStock() != null) {
-                        selectedPrize.setAvailableStock(selectedPrize.getAvailableStock() - 1);
+            outcomes.add(selectedPrize);
+            if (!isEmptyPrize(selectedPrize)) {
+                demand.merge(selectedPrize.getId(), 1, Integer::sum);
+                if (selectedPrize.getAvailableStock() != null) {
+                    selectedPrize.setAvailableStock(selectedPrize.getAvailableStock() - 1);
+                }
+            }
+        }
+        selection.stop(drawMetrics.timer(Phase.STRATEGY));
+
+        // 5. Stock Reservation (the activity's stock mode): one aggregated decrement
+        // per distinct prize instead of one per draw. A ticket pool holds its own
+        // stock, so its wins are already secured.
+        Timer.Sample reservation = Timer.start();
+        Map<Long, Integer> granted = new HashMap<>();
+        if (ticketPool) {
+            granted.putAll(demand);
+        } else {
+            StockReservationStrategy stockReservationStrategy = stockReservationRouter.strategy(activity.stockMode());
+            demand.forEach((prizeId, quantity) -> {
+                int reserved = stockReservationStrategy.reserve(prizeId, quantity);
+                granted.put(prizeId, reserved);
+                if (reserved < quantity) {
+                    log.info("Secured {} of {} units for prize {}, falling back to EMPTY for the rest",
+                            reserved, quantity, prizeId);
+                    drawMetrics.stockFallback(prizeId, quantity - reserved);
+                    // Coming up short may just be contention; stop offering the prize only once the store is empty
+                    if (stockReservationStrategy.isSoldOut(prizeId)) {
+                        activityConfigCache.markSoldOut(activityId, prizeId);
                     }
+                }
+            });
+        }
+        reservation.stop(drawMetrics.timer(Phase.STOCK_RESERVATION));
+        // Before step 6 counts the granted units down
+        stockStreamService.reserved(granted);
+
+        // 6. Record Results: draws beyond the granted quantity are downgraded
+        List<DrawResult> results = new ArrayList<>(drawCount);
+        List<DrawRecord> records = new ArrayList<>(drawCount);
+        Prize emptyPrize = null;
+        for (Prize outcome : outcomes) {
+            Prize selectedPrize = outcome;
+            if (!isEmptyPrize(outcome)) {
+                int remaining = granted.get(outcome.getId());
+                if (remaining > 0) {
+                    granted.put(outcome.getId(), remaining - 1);
                 } else {
-                    // Failed to secure stock
-                    log.info("Failed to secure stock for prize {}, falling back to EMPTY", selectedPrize.getId());
-                    selectedPrize = prizes.stream()
-                            .filter(p -> "銘謝惠顧".equals(p.getName()))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("系統錯誤：未配置銘謝惠顧獎品"));
+                    outcome.setAvailableStock(0);
+                    if (emptyPrize == null) {
+                        emptyPrize = prizes.stream()
+                                .filter(DrawService::isEmptyPrize)
+                                .findFirst()
+                                .orElseThrow(() -> new DrawRejectedException(DrawErrorCode.EMPTY_PRIZE_MISSING,
+                                        "系統錯誤：未配置銘謝惠顧獎品"));
+                    }
+                    selectedPrize = emptyPrize;
                 }
             }
 
-            // 5. Record Result
             DrawRecord record = new DrawRecord();
             record.setUser(user);
             record.setActivityId(activityId);
             record.setPrizeId(selectedPrize.getId());
             record.setPrizeName(selectedPrize.getName());
-            record.setIsWin(!"銘謝惠顧".equals(selectedPrize.getName()));
-
-            drawRecordRepository.save(record);
+            record.setIsWin(!isEmptyPrize(selectedPrize));
+            records.add(record);
+            if (record.getIsWin()) {
+                drawMetrics.win(selectedPrize);
+            }
 
             results.add(DrawResult.builder()
                     .isWin(record.getIsWin())
@@ -113,6 +182,45 @@ public class DrawService {
                     .build());
         }
 
+        // One batch insert, or queued until after commit when write-behind is enabled
+        drawMetrics.timer(Phase.RECORD_SAVE).record(() -> drawRecordWriter.write(records));
+        drawStatsAggregator.record(activityId, userId, records);
+
         return results;
     }
+
+    // The rejections DrawRejectionCache remembers, built the same way whether cached or not
+    private DrawRejectedException rejection(DrawErrorCode code, Integer limit, int drawCount) {
+        String message = switch (code) {
+            case GLOBAL_QUOTA_EXCEEDED -> {
+                drawMetrics.quotaRejected("global");
+                yield "用戶已達全域抽獎配額上限 (" + limit + ")。無法再抽 " + drawCount + " 次。";
+            }
+            case ACTIVITY_QUOTA_EXCEEDED -> {
+                drawMetrics.quotaRejected("activity");
+                yield "用戶已達此活動的抽獎次數上限。無法再抽 " + drawCount + " 次。";
+            }
+            case ACTIVITY_INACTIVE -> "活動未啟用";
+            default -> throw new IllegalArgumentException("Not a cached rejection: " + code);
+        };
+        return new DrawRejectedException(code, message);
+    }
+
+    // Tickets past the end of the pool, or for a prize no longer configured, win nothing
+    private static Prize ticketPrize(Long prizeId, List<Prize> prizes) {
+        Prize emptyPrize = null;
+        for (Prize prize : prizes) {
+            if (prize.getId().equals(prizeId)) {
+                return prize;
+            }
+            if (emptyPrize == null && isEmptyPrize(prize)) {
+                emptyPrize = prize;
+            }
+        }
+        return emptyPrize;
+    }
+
+    private static boolean isEmptyPrize(Prize prize) {
+        return "銘謝惠顧".equals(prize.getName());
+    }
 }
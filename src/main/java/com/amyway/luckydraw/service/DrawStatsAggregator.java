@@ -0,0 +1,312 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live per-activity draw statistics, updated from each committed draw instead
+ * of counting DrawRecord: draws, wins per prize, unique users and draws per
+ * minute over the last hour. Reads never touch the database.
+ * <p>
+ * Unique users is a HyperLogLog estimate (about 1.6% standard error) so an
+ * activity costs a fixed 16 KB however many users draw. The aggregates are
+ * written to luckydraw.stats.snapshot-file periodically and on shutdown and
+ * read back on startup; draws committed after the last snapshot of a crashed
+ * instance are lost. Every instance counts only its own draws.
+ */
+@Slf4j
+@Component
+public class DrawStatsAggregator {
+
+    private static final int MINUTES = 60;
+    // 2^12 HyperLogLog registers per activity
+    private static final int REGISTER_BITS = 12;
+    private static final int REGISTERS = 1 << REGISTER_BITS;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    public record PrizeWins(Long prizeId, String prizeName, long wins) {
+    }
+
+    // minute is the start of the minute, draws committed during it
+    public record MinuteDraws(LocalDateTime minute, long draws) {
+    }
+
+    public record Stats(Long activityId, long draws, long wins, long uniqueUsers, long drawsLastMinute,
+            List<PrizeWins> prizes, List<MinuteDraws> perMinute) {
+    }
+
+    // Snapshot file layout; minutes are epoch minutes
+    record Snapshot(List<SavedActivity> activities) {
+    }
+
+    record SavedActivity(Long activityId, long draws, long wins, List<PrizeWins> prizes, byte[] registers,
+            long[] minutes, long[] minuteDraws) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path snapshotFile;
+    private final Map<Long, ActivityStats> activities = new ConcurrentHashMap<>();
+
+    public DrawStatsAggregator(ObjectMapper objectMapper,
+            @Value("${luckydraw.stats.snapshot-file:data/draw-stats.json}") String snapshotFile) {
+        this.objectMapper = objectMapper;
+        this.snapshotFile = snapshotFile.isEmpty() ? null : Paths.get(snapshotFile);
+    }
+
+    // Counts the draw's records once its transaction commits; a rolled back draw never shows up
+    public void record(Long activityId, Long userId, List<DrawRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(activityId, userId, records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(activityId, userId, records);
+            }
+        });
+    }
+
+    public Stats stats(Long activityId) {
+        ActivityStats stats = activities.get(activityId);
+        return stats == null
+                ? new Stats(activityId, 0, 0, 0, 0, List.of(), List.of())
+                : stats.read(activityId, currentMinute());
+    }
+
+    @PostConstruct
+    public void load() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), Snapshot.class);
+            for (SavedActivity saved : snapshot.activities()) {
+                activities.put(saved.activityId(), ActivityStats.restore(saved));
+            }
+            log.info("Loaded draw statistics of {} activities from {}", activities.size(), snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            // Statistics are advisory; start from zero rather than fail startup
+            log.warn("Ignoring unreadable draw statistics snapshot {}", snapshotFile, e);
+        }
+    }
+
+    // Written to a temporary file first so a crash never leaves a truncated snapshot behind
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${luckydraw.stats.snapshot-interval:60000}")
+    public void snapshot() {
+        if (snapshotFile == null || activities.isEmpty()) {
+            return;
+        }
+        List<SavedActivity> saved = new ArrayList<>(activities.size());
+        activities.forEach((activityId, stats) -> saved.add(stats.save(activityId)));
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(tmp.toFile(), new Snapshot(saved));
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write draw statistics snapshot {}", snapshotFile, e);
+        }
+    }
+
+    private void apply(Long activityId, Long userId, List<DrawRecord> records) {
+        ActivityStats stats = activities.computeIfAbsent(activityId, id -> new ActivityStats());
+        stats.draws.add(records.size());
+        for (DrawRecord record : records) {
+            if (Boolean.TRUE.equals(record.getIsWin())) {
+                stats.wins.increment();
+                stats.prizes.computeIfAbsent(record.getPrizeId(), id -> new PrizeCounter(record.getPrizeName()))
+                        .wins().increment();
+            }
+        }
+        if (userId != null) {
+            stats.addUser(userId);
+        }
+        stats.addDraws(currentMinute(), records.size());
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private record PrizeCounter(String name, LongAdder wins) {
+        PrizeCounter(String name) {
+            this(name, new LongAdder());
+        }
+    }
+
+    private record MinuteBucket(long minute, LongAdder draws) {
+    }
+
+    private static final class ActivityStats {
+
+        private final LongAdder draws = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final Map<Long, PrizeCounter> prizes = new ConcurrentHashMap<>();
+        private final AtomicIntegerArray registers = new AtomicIntegerArray(REGISTERS);
+        // Kept alongside the registers so the estimate is read without scanning them
+        private final DoubleAdder inverseSum = new DoubleAdder();
+        private final LongAdder emptyRegisters = new LongAdder();
+        // One slot per minute of the last hour, reused once its minute is over
+        private final AtomicReferenceArray<MinuteBucket> minutes = new AtomicReferenceArray<>(MINUTES);
+
+        ActivityStats() {
+            inverseSum.add(REGISTERS);
+            emptyRegisters.add(REGISTERS);
+        }
+
+        void addUser(Long userId) {
+            long hash = mix(userId);
+            int index = (int) (hash >>> (Long.SIZE - REGISTER_BITS));
+            // Position of the first set bit after the index bits; the guard bit caps it
+            int rank = Long.numberOfLeadingZeros((hash << REGISTER_BITS) | (1L << (REGISTER_BITS - 1))) + 1;
+            int current = registers.get(index);
+            while (rank > current) {
+                if (registers.compareAndSet(index, current, rank)) {
+                    inverseSum.add(Math.scalb(1.0, -rank) - Math.scalb(1.0, -current));
+                    if (current == 0) {
+                        emptyRegisters.decrement();
+                    }
+                    return;
+                }
+                current = registers.get(index);
+            }
+        }
+
+        long uniqueUsers() {
+            double estimate = ALPHA * REGISTERS * REGISTERS / inverseSum.sum();
+            long empty = emptyRegisters.sum();
+            if (estimate <= 2.5 * REGISTERS && empty > 0) {
+                // Linear counting is more accurate while many registers are still empty
+                estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+            }
+            return Math.round(estimate);
+        }
+
+        void addDraws(long minute, long count) {
+            int slot = (int) (minute % MINUTES);
+            MinuteBucket bucket = minutes.get(slot);
+            while (bucket == null || bucket.minute() != minute) {
+                if (bucket != null && bucket.minute() > minute) {
+                    // Clock stepped back past a newer bucket; count it there
+                    break;
+                }
+                MinuteBucket fresh = new MinuteBucket(minute, new LongAdder());
+                if (minutes.compareAndSet(slot, bucket, fresh)) {
+                    bucket = fresh;
+                    break;
+                }
+                bucket = minutes.get(slot);
+            }
+            bucket.draws().add(count);
+        }
+
+        Stats read(Long activityId, long now) {
+            List<PrizeWins> prizeWins = new ArrayList<>(prizes.size());
+            prizes.forEach((prizeId, counter) ->
+                    prizeWins.add(new PrizeWins(prizeId, counter.name(), counter.wins().sum())));
+            List<MinuteDraws> perMinute = new ArrayList<>(MINUTES);
+            long lastMinute = 0;
+            for (int i = 0; i < MINUTES; i++) {
+                MinuteBucket bucket = minutes.get(i);
+                if (bucket != null && bucket.minute() > now - MINUTES && bucket.minute() <= now) {
+                    long draws = bucket.draws().sum();
+                    perMinute.add(new MinuteDraws(LocalDateTime.ofInstant(
+                            Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(bucket.minute())),
+                            ZoneId.systemDefault()), draws));
+                    if (bucket.minute() == now) {
+                        lastMinute = draws;
+                    }
+                }
+            }
+            perMinute.sort(Comparator.comparing(MinuteDraws::minute));
+            return new Stats(activityId, draws.sum(), wins.sum(), uniqueUsers(), lastMinute, prizeWins, perMinute);
+        }
+
+        SavedActivity save(Long activityId) {
+            List<PrizeWins> prizeWins = new ArrayList<>(prizes.size());
+            prizes.forEach((prizeId, counter) ->
+                    prizeWins.add(new PrizeWins(prizeId, counter.name(), counter.wins().sum())));
+            byte[] savedRegisters = new byte[REGISTERS];
+            for (int i = 0; i < REGISTERS; i++) {
+                savedRegisters[i] = (byte) registers.get(i);
+            }
+            long[] savedMinutes = new long[MINUTES];
+            long[] savedDraws = new long[MINUTES];
+            for (int i = 0; i < MINUTES; i++) {
+                MinuteBucket bucket = minutes.get(i);
+                if (bucket != null) {
+                    savedMinutes[i] = bucket.minute();
+                    savedDraws[i] = bucket.draws().sum();
+                }
+            }
+            return new SavedActivity(activityId, draws.sum(), wins.sum(), prizeWins, savedRegisters,
+                    savedMinutes, savedDraws);
+        }
+
+        static ActivityStats restore(SavedActivity saved) {
+            ActivityStats stats = new ActivityStats();
+            stats.draws.add(saved.draws());
+            stats.wins.add(saved.wins());
+            for (PrizeWins prize : saved.prizes()) {
+                stats.prizes.computeIfAbsent(prize.prizeId(), id -> new PrizeCounter(prize.prizeName()))
+                        .wins().add(prize.wins());
+            }
+            for (int i = 0; i < REGISTERS && i < saved.registers().length; i++) {
+                int rank = saved.registers()[i];
+                if (rank > 0) {
+                    stats.registers.set(i, rank);
+                    stats.inverseSum.add(Math.scalb(1.0, -rank) - 1);
+                    stats.emptyRegisters.decrement();
+                }
+            }
+            for (int i = 0; i < MINUTES && i < saved.minutes().length; i++) {
+                if (saved.minuteDraws()[i] > 0) {
+                    stats.addDraws(saved.minutes()[i], saved.minuteDraws()[i]);
+                }
+            }
+            return stats;
+        }
+
+        // MurmurHash3 finalizer: spreads sequential user ids over all 64 bits
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
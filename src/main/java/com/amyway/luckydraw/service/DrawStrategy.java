@@ -6,4 +6,10 @@ import java.util.List;
 
 public interface DrawStrategy {
     Prize draw(List<Prize> prizes);
+
+    // Strategies that precompute per-activity structures override this;
+    // the default simply ignores the activity
+    default Prize draw(Long activityId, List<Prize> prizes) {
+        return draw(prizes);
+    }
 }
@@ -0,0 +1,172 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.exception.DrawRejectedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the draw path after a deploy, before the instance takes traffic.
+ * Spring Boot only reports readiness as ACCEPTING_TRAFFIC once every
+ * ApplicationRunner has returned, so the readiness probe stays down while
+ * this runs. Active activities are loaded into ActivityConfigCache with their
+ * strategy structures or ticket pools, the connection pool is filled, and
+ * synthetic draws for a throwaway user run in transactions that are always
+ * rolled back. Work stops at the time budget; a failed warm-up is logged and
+ * the instance starts cold.
+ * <p>
+ * Opt-in with luckydraw.warmup.enabled: the synthetic draws are real draws,
+ * and the little they do outside the transaction stays, e.g. a prize that ran
+ * out is marked sold out in ActivityConfigCache and partition tables for the
+ * current month get created.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "luckydraw.warmup.enabled", havingValue = "true")
+public class DrawWarmup implements ApplicationRunner {
+
+    private final ActivityRepository activityRepository;
+    private final UserRepository userRepository;
+    private final ActivityConfigCache activityConfigCache;
+    private final DrawStrategy drawStrategy;
+    private final TicketPoolService ticketPoolService;
+    private final DrawService drawService;
+    private final DrawMetrics drawMetrics;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final long budgetNanos;
+    private final int draws;
+    private final int connections;
+
+    public DrawWarmup(ActivityRepository activityRepository, UserRepository userRepository,
+            ActivityConfigCache activityConfigCache, DrawStrategy drawStrategy, TicketPoolService ticketPoolService,
+            DrawService drawService, DrawMetrics drawMetrics, DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${luckydraw.warmup.budget:30000}") long budgetMillis,
+            @Value("${luckydraw.warmup.draws:2000}") int draws,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections) {
+        this.activityRepository = activityRepository;
+        this.userRepository = userRepository;
+        this.activityConfigCache = activityConfigCache;
+        this.drawStrategy = drawStrategy;
+        this.ticketPoolService = ticketPoolService;
+        this.drawService = drawService;
+        this.drawMetrics = drawMetrics;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.draws = draws;
+        this.connections = connections;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + budgetNanos;
+        try {
+            List<ActivitySnapshot> activities = loadActivities(deadline);
+            int opened = fillConnectionPool(deadline);
+            int drawn = drawSynthetic(activities, deadline);
+            log.info("Warm-up finished in {} ms: {} active activities, {} connections, {} synthetic draws{}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), activities.size(), opened, drawn,
+                    expired(deadline) ? " (time budget reached)" : "");
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed, starting cold", e);
+        }
+    }
+
+    // Caches every running activity and builds what its draws will need
+    private List<ActivitySnapshot> loadActivities(long deadline) {
+        List<ActivitySnapshot> snapshots = new ArrayList<>();
+        for (Activity activity : activityRepository.findActive(LocalDateTime.now())) {
+            if (expired(deadline)) {
+                break;
+            }
+            activityConfigCache.get(activity.getId()).ifPresent(snapshot -> {
+                if (snapshot.drawMode() == DrawMode.TICKET_POOL) {
+                    // Maps the pool file, or rebuilds it if it went missing
+                    ticketPoolService.stats(snapshot);
+                } else if (!snapshot.prizes().isEmpty()) {
+                    // Per-activity structures such as alias tables are built on first use
+                    drawStrategy.draw(snapshot.id(), snapshot.newPrizes());
+                }
+                snapshots.add(snapshot);
+            });
+        }
+        return snapshots;
+    }
+
+    // Hikari opens connections lazily; holding the whole pool at once forces them all open
+    private int fillConnectionPool(long deadline) {
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            while (opened.size() < connections && !expired(deadline)) {
+                opened.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up opened only {} of {} connections", opened.size(), connections, e);
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Failed to return warm-up connection", e);
+                }
+            }
+        }
+        return opened.size();
+    }
+
+    /**
+     * One single draw per transaction, round robin over the active activities,
+     * each for a user created in the same transaction. Rolling back undoes the
+     * user, counters, stock and records; stock modes outside the database and
+     * ticket pools give their reservations back on rollback.
+     */
+    private int drawSynthetic(List<ActivitySnapshot> activities, long deadline) {
+        int drawn = 0;
+        while (!activities.isEmpty() && drawn < draws && !expired(deadline)) {
+            Long activityId = activities.get(drawn % activities.size()).id();
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                User user = new User();
+                user.setName("warm-up");
+                user.setDrawQuota(Integer.MAX_VALUE);
+                Long userId = userRepository.save(user).getId();
+                try {
+                    drawMetrics.muted(() -> drawService.draw(userId, activityId, 1));
+                } catch (DrawRejectedException e) {
+                    // Sold out or no draws allowed per user: the rejection path is warm now too
+                }
+            });
+            drawn++;
+        }
+        return drawn;
+    }
+
+    private static boolean expired(long deadline) {
+        return System.nanoTime() - deadline >= 0;
+    }
+}
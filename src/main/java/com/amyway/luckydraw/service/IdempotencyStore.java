@@ -0,0 +1,25 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.dto.DrawResult;
+
+import java.util.List;
+
+/**
+ * Remembers the outcome of draw requests by idempotency key for a limited
+ * time. Every operation must be atomic on its own.
+ */
+public interface IdempotencyStore {
+
+    // results is null while the first request is still drawing
+    record Entry(String fingerprint, List<DrawResult> results) {
+    }
+
+    // Claims the key for a new draw; returns null when claimed, otherwise the existing entry
+    Entry claim(String key, String fingerprint);
+
+    // Stores the results of a committed draw for replay
+    void complete(String key, String fingerprint, List<DrawResult> results);
+
+    // Forgets a claim whose draw failed, so a retry runs it again
+    void release(String key);
+}
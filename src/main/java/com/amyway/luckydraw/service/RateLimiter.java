@@ -0,0 +1,21 @@
+package com.amyway.luckydraw.service;
+
+/**
+ * Token buckets kept as GCRA state: one theoretical arrival time per key
+ * instead of a token count plus a refill timestamp, so a bucket is a single
+ * value that can be updated atomically.
+ */
+public interface RateLimiter {
+
+    // intervalNanos between permits at the sustained rate; burstNanos of credit a bucket can bank
+    record Limit(long intervalNanos, long burstNanos) {
+
+        public static Limit of(double permitsPerSecond, int burst) {
+            long interval = (long) (1_000_000_000L / permitsPerSecond);
+            return new Limit(interval, interval * Math.max(1, burst));
+        }
+    }
+
+    // Takes one permit; returns 0 when granted, otherwise nanoseconds until one is available
+    long tryAcquire(String key, Limit limit);
+}
@@ -0,0 +1,42 @@
+package com.amyway.luckydraw.service;
+
+import java.util.Set;
+
+/**
+ * Shared stock counters plus the decrements still owed to the Prize table.
+ * Every operation must be atomic on its own.
+ */
+public interface StockCounterStore {
+
+    long MISSING = -1;
+    long INSUFFICIENT = -2;
+
+    // Decrements the counter and records the pending write-back; returns the
+    // remaining stock, MISSING if the counter is not seeded or INSUFFICIENT
+    long reserve(Long prizeId, int quantity);
+
+    // Undoes a reservation whose draw was rolled back
+    void release(Long prizeId, int quantity);
+
+    // Sets the counter only if it does not exist yet
+    boolean seed(Long prizeId, int stock);
+
+    Integer get(Long prizeId);
+
+    void set(Long prizeId, int stock);
+
+    // Sets the counter to databaseStock minus the pending decrements, read in the
+    // same atomic step; returns the previous counter or MISSING
+    long reseed(Long prizeId, int databaseStock);
+
+    void delete(Long prizeId);
+
+    Set<Long> pendingPrizeIds();
+
+    int getPending(Long prizeId);
+
+    // Atomically reads and clears the pending decrements of a prize
+    int takePending(Long prizeId);
+
+    void addPending(Long prizeId, int quantity);
+}
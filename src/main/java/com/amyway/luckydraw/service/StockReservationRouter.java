@@ -0,0 +1,83 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.StockMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the StockReservationStrategy of an activity's stock mode. Activities
+ * without one use luckydraw.stock.mode. Flushes and evictions go to every
+ * strategy, since callers editing a prize do not know which activities'
+ * modes have counters for it.
+ */
+@Service
+public class StockReservationRouter {
+
+    private final Map<StockMode, StockReservationStrategy> strategies = new EnumMap<>(StockMode.class);
+    private final StockMode defaultMode;
+
+    public StockReservationRouter(List<StockReservationStrategy> strategies,
+            @Value("${luckydraw.stock.mode:database}") String defaultMode) {
+        for (StockReservationStrategy strategy : strategies) {
+            this.strategies.put(strategy.mode(), strategy);
+        }
+        this.defaultMode = StockMode.of(defaultMode);
+        if (!this.strategies.containsKey(this.defaultMode)) {
+            throw new IllegalStateException("No stock reservation strategy for luckydraw.stock.mode=" + defaultMode);
+        }
+    }
+
+    public StockMode resolve(StockMode mode) {
+        return mode == null ? defaultMode : mode;
+    }
+
+    // Rejects modes this node has no strategy for, i.e. REDIS unless luckydraw.stock.mode=redis
+    public void checkSupported(StockMode mode) {
+        if (!strategies.containsKey(resolve(mode))) {
+            throw new RuntimeException("此節點未啟用庫存模式 " + mode);
+        }
+    }
+
+    public StockReservationStrategy strategy(StockMode mode) {
+        checkSupported(mode);
+        return strategies.get(resolve(mode));
+    }
+
+    public void flush(Long prizeId) {
+        for (StockReservationStrategy strategy : all()) {
+            strategy.flush(prizeId);
+        }
+    }
+
+    // After the admin transaction commits: evicting earlier lets a concurrent draw
+    // reload the old stock from the Prize table and keep it
+    public void evict(Long prizeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(prizeId);
+                }
+            });
+        } else {
+            evictNow(prizeId);
+        }
+    }
+
+    private void evictNow(Long prizeId) {
+        for (StockReservationStrategy strategy : all()) {
+            strategy.evict(prizeId);
+        }
+    }
+
+    private Collection<StockReservationStrategy> all() {
+        return strategies.values();
+    }
+}
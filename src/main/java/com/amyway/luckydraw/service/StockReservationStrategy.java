@@ -0,0 +1,34 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.StockMode;
+
+public interface StockReservationStrategy {
+
+    // The Activity.stockMode this strategy serves
+    StockMode mode();
+
+    // Takes one unit of stock for the prize; false when sold out
+    boolean reserve(Long prizeId);
+
+    // Takes up to quantity units in as few round-trips as the store allows;
+    // returns how many were granted (0..quantity)
+    default int reserve(Long prizeId, int quantity) {
+        int granted = 0;
+        while (granted < quantity && reserve(prizeId)) {
+            granted++;
+        }
+        return granted;
+    }
+
+    // Whether the store holds no stock for the prize now. A reservation can come up
+    // short without that, e.g. after losing every optimistic retry
+    boolean isSoldOut(Long prizeId);
+
+    // Pushes decrements not yet written to the Prize table, so admin edits read current stock
+    default void flush(Long prizeId) {
+    }
+
+    // Drops any cached counter so the next reservation re-reads the Prize table
+    default void evict(Long prizeId) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Pushes remaining prize stock to server-sent event subscribers instead of
+ * having them poll the prize list. A watched activity's stock is loaded once
+ * and then kept current from committed draws and prize edits; changes are
+ * coalesced and sent at most once per luckydraw.stock-stream.interval per
+ * activity, serialized once for all of its subscribers. Stock is re-read every
+ * resync-interval so draws on other instances and write-back lag are caught up.
+ * Activities nobody watches cost nothing.
+ */
+@Service
+public class StockStreamService {
+
+    public record PrizeStock(Long prizeId, String name, Integer availableStock) {
+    }
+
+    // Sent as the "snapshot" event on subscribe and as "stock" events with only the changed prizes
+    public record StockMessage(Long activityId, List<PrizeStock> prizes) {
+    }
+
+    private final PrizeRepository prizeRepository;
+    private final StockReservationRouter stockReservationRouter;
+    private final TicketPoolService ticketPoolService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final Map<Long, ActivityStream> streams = new ConcurrentHashMap<>();
+
+    public StockStreamService(PrizeRepository prizeRepository, StockReservationRouter stockReservationRouter,
+            TicketPoolService ticketPoolService, ObjectMapper objectMapper,
+            @Value("${luckydraw.stock-stream.timeout:1800000}") long timeoutMillis) {
+        this.prizeRepository = prizeRepository;
+        this.stockReservationRouter = stockReservationRouter;
+        this.ticketPoolService = ticketPoolService;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe(Long activityId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // Registered under the key's lock so a concurrent last unsubscribe cannot drop this stream
+        ActivityStream stream = streams.compute(activityId, (id, current) -> {
+            ActivityStream target = current == null ? new ActivityStream() : current;
+            target.emitters.add(emitter);
+            return target;
+        });
+        // The first subscriber loads the stock; later ones start from what is tracked
+        stream.loadIfNeeded(() -> prizeRepository.findByActivityId(activityId));
+        Runnable remove = () -> unsubscribe(activityId, stream, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        try {
+            emitter.send(SseEmitter.event().name("snapshot")
+                    .data(json(new StockMessage(activityId, stream.all())), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // Units of each prize taken by a draw, applied once the draw commits
+    public void reserved(Map<Long, Integer> granted) {
+        if (streams.isEmpty() || granted.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> taken = Map.copyOf(granted);
+        afterCommit(() -> streams.values().forEach(stream ->
+                taken.forEach((prizeId, quantity) -> stream.adjust(prizeId, -quantity))));
+    }
+
+    // An admin set the prize's stock
+    public void updated(Prize prize) {
+        if (streams.isEmpty()) {
+            return;
+        }
+        PrizeStock stock = new PrizeStock(prize.getId(), prize.getName(), prize.getAvailableStock());
+        afterCommit(() -> streams.values().forEach(stream -> stream.set(stock)));
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.stock-stream.interval:1000}")
+    public void publish() {
+        streams.forEach((activityId, stream) -> {
+            List<PrizeStock> changed = stream.drainChanged();
+            if (!changed.isEmpty()) {
+                send(stream, "stock", new StockMessage(activityId, changed));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.stock-stream.resync-interval:30000}")
+    public void resync() {
+        streams.forEach((activityId, stream) -> {
+            for (Long prizeId : stream.prizeIds()) {
+                // Stock taken outside the database is written back first, like an admin edit does
+                stockReservationRouter.flush(prizeId);
+                ticketPoolService.flush(prizeId);
+            }
+            stream.reload(prizeRepository.findByActivityId(activityId));
+        });
+    }
+
+    public int subscribers(Long activityId) {
+        ActivityStream stream = streams.get(activityId);
+        return stream == null ? 0 : stream.emitters.size();
+    }
+
+    private void send(ActivityStream stream, String name, StockMessage message) {
+        String data = json(message);
+        for (SseEmitter emitter : stream.emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; its completion callback removes it
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void unsubscribe(Long activityId, ActivityStream stream, SseEmitter emitter) {
+        stream.emitters.remove(emitter);
+        // Stop tracking once nobody watches; a later subscriber reloads
+        streams.computeIfPresent(activityId, (id, current) -> current.emitters.isEmpty() ? null : current);
+    }
+
+    private String json(StockMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class ActivityStream {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final Map<Long, PrizeStock> stock = new ConcurrentHashMap<>();
+        // Prizes changed since the last publish
+        private final Map<Long, Boolean> changed = new ConcurrentHashMap<>();
+        private volatile boolean loaded;
+
+        void loadIfNeeded(Supplier<List<Prize>> loader) {
+            if (loaded) {
+                return;
+            }
+            synchronized (this) {
+                if (!loaded) {
+                    reload(loader.get());
+                    // Subscribers get the loaded stock as their snapshot, not as changes
+                    changed.clear();
+                    loaded = true;
+                }
+            }
+        }
+
+        void reload(List<Prize> prizes) {
+            Map<Long, PrizeStock> current = new ConcurrentHashMap<>();
+            for (Prize prize : prizes) {
+                current.put(prize.getId(), new PrizeStock(prize.getId(), prize.getName(), prize.getAvailableStock()));
+            }
+            current.forEach((prizeId, fresh) -> {
+                if (!fresh.equals(stock.put(prizeId, fresh))) {
+                    changed.put(prizeId, true);
+                }
+            });
+            stock.keySet().removeIf(prizeId -> !current.containsKey(prizeId));
+        }
+
+        // Only prizes of this activity are tracked; others are ignored
+        void adjust(Long prizeId, int delta) {
+            PrizeStock updated = stock.computeIfPresent(prizeId, (id, old) -> old.availableStock() == null ? old
+                    : new PrizeStock(id, old.name(), Math.max(0, old.availableStock() + delta)));
+            if (updated != null) {
+                changed.put(prizeId, true);
+            }
+        }
+
+        void set(PrizeStock fresh) {
+            if (stock.computeIfPresent(fresh.prizeId(), (id, old) -> fresh) != null) {
+                changed.put(fresh.prizeId(), true);
+            }
+        }
+
+        List<Long> prizeIds() {
+            return new ArrayList<>(stock.keySet());
+        }
+
+        List<PrizeStock> all() {
+            return new ArrayList<>(stock.values());
+        }
+
+        List<PrizeStock> drainChanged() {
+            List<PrizeStock> drained = new ArrayList<>();
+            for (Long prizeId : changed.keySet()) {
+                changed.remove(prizeId);
+                PrizeStock current = stock.get(prizeId);
+                if (current != null) {
+                    drained.add(current);
+                }
+            }
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.amyway.luckydraw.service;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One activity's pre-shuffled outcomes in a memory-mapped file. Tickets are
+ * packed ints indexing a prize id table; the cursor lives in the file header
+ * and is advanced with an atomic getAndAdd on the mapping, so a restarted
+ * node carries on where the last one stopped.
+ *
+ * <pre>
+ * offset  type               field
+ * 0       int                magic "LDTP"
+ * 4       int                format version
+ * 8       long               cursor, index of the next ticket to hand out
+ * 16      long               activity id
+ * 24      int                ticket count
+ * 28      int                prize count
+ * 32      long[prizeCount]   prize ids
+ * ...     int[ticketCount]   tickets, each an index into the prize ids
+ * </pre>
+ */
+final class TicketPool {
+
+    // Returned by take() for positions past the end of the pool
+    static final int EXHAUSTED = -1;
+
+    private static final int MAGIC = 0x4C445450;
+    private static final int VERSION = 1;
+    private static final int CURSOR_OFFSET = 8;
+    private static final int ACTIVITY_OFFSET = 16;
+    private static final int TICKET_COUNT_OFFSET = 24;
+    private static final int PRIZE_COUNT_OFFSET = 28;
+    private static final int PRIZE_IDS_OFFSET = 32;
+
+    // A single mapping is limited to Integer.MAX_VALUE bytes
+    static final int MAX_TICKETS = (Integer.MAX_VALUE - 4096) / Integer.BYTES;
+
+    private static final VarHandle CURSOR = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final MappedByteBuffer buffer;
+    private final long activityId;
+    private final int ticketCount;
+    private final long[] prizeIds;
+    private final int ticketsOffset;
+    // Tickets handed out by draws that rolled back; kept in memory only
+    private final ConcurrentLinkedQueue<Integer> returned = new ConcurrentLinkedQueue<>();
+
+    private TicketPool(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.activityId = buffer.getLong(ACTIVITY_OFFSET);
+        this.ticketCount = buffer.getInt(TICKET_COUNT_OFFSET);
+        int prizeCount = buffer.getInt(PRIZE_COUNT_OFFSET);
+        this.prizeIds = new long[prizeCount];
+        for (int i = 0; i < prizeCount; i++) {
+            prizeIds[i] = buffer.getLong(PRIZE_IDS_OFFSET + i * Long.BYTES);
+        }
+        this.ticketsOffset = PRIZE_IDS_OFFSET + prizeCount * Long.BYTES;
+    }
+
+    /**
+     * Writes counts[i] tickets for prizeIds[i], shuffled in place, to a
+     * temporary file and moves it over {@code file} once it is on disk.
+     */
+    static TicketPool create(Path file, long activityId, long[] prizeIds, int[] counts, Random random)
+            throws IOException {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        if (total > MAX_TICKETS) {
+            throw new IllegalArgumentException("Ticket pool of " + total + " exceeds " + MAX_TICKETS);
+        }
+        int ticketCount = (int) total;
+        int ticketsOffset = PRIZE_IDS_OFFSET + prizeIds.length * Long.BYTES;
+        long size = ticketsOffset + (long) ticketCount * Integer.BYTES;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(CURSOR_OFFSET, 0);
+            buffer.putLong(ACTIVITY_OFFSET, activityId);
+            buffer.putInt(TICKET_COUNT_OFFSET, ticketCount);
+            buffer.putInt(PRIZE_COUNT_OFFSET, prizeIds.length);
+            for (int i = 0; i < prizeIds.length; i++) {
+                buffer.putLong(PRIZE_IDS_OFFSET + i * Long.BYTES, prizeIds[i]);
+            }
+
+            int position = 0;
+            for (int prize = 0; prize < counts.length; prize++) {
+                for (int i = 0; i < counts[prize]; i++) {
+                    buffer.putInt(ticketsOffset + position++ * Integer.BYTES, prize);
+                }
+            }
+            // Fisher-Yates directly on the mapping, so the pool never sits on the heap
+            for (int i = ticketCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int a = ticketsOffset + i * Integer.BYTES;
+                int b = ticketsOffset + j * Integer.BYTES;
+                int swap = buffer.getInt(a);
+                buffer.putInt(a, buffer.getInt(b));
+                buffer.putInt(b, swap);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file, activityId);
+    }
+
+    static TicketPool open(Path file, long activityId) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < PRIZE_IDS_OFFSET) {
+                throw new IOException("Truncated ticket pool " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a ticket pool: " + file);
+            }
+            TicketPool pool = new TicketPool(buffer);
+            long expectedSize = pool.ticketsOffset + (long) pool.ticketCount * Integer.BYTES;
+            if (pool.activityId != activityId || channel.size() != expectedSize) {
+                throw new IOException("Ticket pool " + file + " does not belong to activity " + activityId);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Claims count tickets, rolled-back ones first; positions past the end of
+     * the pool come back as {@link #EXHAUSTED}.
+     */
+    int[] take(int count) {
+        int[] tickets = new int[count];
+        int taken = 0;
+        Integer ticket;
+        while (taken < count && (ticket = returned.poll()) != null) {
+            tickets[taken++] = ticket;
+        }
+        if (taken < count) {
+            long position = (long) CURSOR.getAndAdd(buffer, CURSOR_OFFSET, (long) (count - taken));
+            for (; taken < count; taken++, position++) {
+                tickets[taken] = position < ticketCount
+                        ? buffer.getInt(ticketsOffset + (int) position * Integer.BYTES)
+                        : EXHAUSTED;
+            }
+        }
+        return tickets;
+    }
+
+    // Puts tickets of a rolled-back draw back in front of the cursor
+    void giveBack(int[] tickets) {
+        for (int ticket : tickets) {
+            if (ticket != EXHAUSTED) {
+                returned.add(ticket);
+            }
+        }
+    }
+
+    long prizeId(int ticket) {
+        return prizeIds[ticket];
+    }
+
+    int ticketCount() {
+        return ticketCount;
+    }
+
+    long remaining() {
+        long cursor = (long) CURSOR.getVolatile(buffer, CURSOR_OFFSET);
+        return Math.max(0, ticketCount - cursor) + returned.size();
+    }
+
+    // Dirty pages survive a JVM crash on their own; this covers the OS going down
+    void force() {
+        buffer.force(0, PRIZE_IDS_OFFSET);
+    }
+}
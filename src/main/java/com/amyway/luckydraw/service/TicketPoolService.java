@@ -0,0 +1,230 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.cache.PrizeSnapshot;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ticket pools for activities in {@link com.amyway.luckydraw.domain.DrawMode#TICKET_POOL}
+ * mode. The pool is sized from each prize's stock and probability when the
+ * activity is created, so a draw is a cursor bump instead of a probability
+ * sample plus a stock reservation. The pool owns its prizes' stock: wins are
+ * written back to the Prize table on a fixed delay and on shutdown, like the
+ * memory stock mode. Pool files are node-local, so this mode assumes a single
+ * application instance.
+ */
+@Slf4j
+@Service
+public class TicketPoolService {
+
+    private static final String EMPTY_PRIZE_NAME = "銘謝惠顧";
+
+    private final PrizeRepository prizeRepository;
+    private final Path directory;
+    private final int maxTickets;
+    private final Map<Long, TicketPool> pools = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> pendingWins = new ConcurrentHashMap<>();
+
+    public record Stats(Long activityId, int ticketCount, long remaining) {
+    }
+
+    public TicketPoolService(PrizeRepository prizeRepository,
+            @Value("${luckydraw.ticket-pool.dir:data/ticket-pools}") String directory,
+            @Value("${luckydraw.ticket-pool.max-tickets:10000000}") int maxTickets) {
+        this.prizeRepository = prizeRepository;
+        this.directory = Paths.get(directory);
+        this.maxTickets = Math.min(maxTickets, TicketPool.MAX_TICKETS);
+    }
+
+    /**
+     * Builds the activity's pool from its prizes' available stock, replacing
+     * any previous pool file for the same id.
+     */
+    public void create(ActivitySnapshot activity) {
+        pools.put(activity.id(), build(activity));
+    }
+
+    /**
+     * Hands out count outcomes in pool order. An entry is null once the pool
+     * is used up. Tickets go back to the pool if the surrounding transaction
+     * rolls back; wins only count against stock once it commits.
+     */
+    public List<Long> draw(ActivitySnapshot activity, int count) {
+        TicketPool pool = pools.computeIfAbsent(activity.id(), id -> load(activity));
+        int[] tickets = pool.take(count);
+
+        List<Long> prizeIds = new ArrayList<>(count);
+        Map<Long, Integer> wins = new HashMap<>();
+        Map<Long, PrizeSnapshot> prizes = new HashMap<>();
+        activity.prizes().forEach(prize -> prizes.put(prize.id(), prize));
+        for (int ticket : tickets) {
+            if (ticket == TicketPool.EXHAUSTED) {
+                prizeIds.add(null);
+                continue;
+            }
+            long prizeId = pool.prizeId(ticket);
+            prizeIds.add(prizeId);
+            PrizeSnapshot prize = prizes.get(prizeId);
+            if (prize != null && !EMPTY_PRIZE_NAME.equals(prize.name())) {
+                wins.merge(prizeId, 1, Integer::sum);
+            }
+        }
+        settle(pool, tickets, wins);
+        return prizeIds;
+    }
+
+    public Stats stats(ActivitySnapshot activity) {
+        TicketPool pool = pools.computeIfAbsent(activity.id(), id -> load(activity));
+        return new Stats(activity.id(), pool.ticketCount(), pool.remaining());
+    }
+
+    // Pushes wins not yet written to the Prize table, so admin edits read current stock
+    public void flush(Long prizeId) {
+        LongAdder pending = pendingWins.get(prizeId);
+        if (pending != null) {
+            writeBack(prizeId, pending);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.stock.write-back-interval:1000}")
+    public void flushPending() {
+        pendingWins.forEach(this::writeBack);
+        pools.values().forEach(TicketPool::force);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+
+    // Restarted node: reopen the existing pool and continue from its cursor
+    private TicketPool load(ActivitySnapshot activity) {
+        Path file = file(activity.id());
+        if (!Files.exists(file)) {
+            // Data directory lost: start over from whatever stock is left
+            log.warn("Ticket pool file {} missing, rebuilding from remaining stock", file);
+            return build(activity);
+        }
+        try {
+            return TicketPool.open(file, activity.id());
+        } catch (IOException e) {
+            throw new RuntimeException("票池檔案無法讀取：活動 " + activity.id(), e);
+        }
+    }
+
+    private TicketPool build(ActivitySnapshot activity) {
+        List<PrizeSnapshot> prizes = activity.prizes();
+        int[] counts = ticketCounts(prizes, maxTickets);
+        long[] prizeIds = prizes.stream().mapToLong(PrizeSnapshot::id).toArray();
+        try {
+            TicketPool pool = TicketPool.create(file(activity.id()), activity.id(), prizeIds, counts,
+                    new SecureRandom());
+            log.info("Created ticket pool of {} tickets for activity {}", pool.ticketCount(), activity.id());
+            return pool;
+        } catch (IOException e) {
+            throw new RuntimeException("票池建立失敗：活動 " + activity.id(), e);
+        }
+    }
+
+    private void settle(TicketPool pool, int[] tickets, Map<Long, Integer> wins) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addPendingWins(wins);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    addPendingWins(wins);
+                } else {
+                    pool.giveBack(tickets);
+                }
+            }
+        });
+    }
+
+    private synchronized void writeBack(Long prizeId, LongAdder pending) {
+        long quantity = pending.sum();
+        if (quantity == 0) {
+            return;
+        }
+        try {
+            prizeRepository.decrementStockBy(prizeId, (int) quantity);
+            pending.add(-quantity);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write back ticket pool wins for prize {}, will retry", prizeId, e);
+        }
+    }
+
+    private void addPendingWins(Map<Long, Integer> wins) {
+        wins.forEach((prizeId, quantity) -> pendingWins.computeIfAbsent(prizeId, id -> new LongAdder()).add(quantity));
+    }
+
+    private Path file(Long activityId) {
+        return directory.resolve("activity-" + activityId + ".tickets");
+    }
+
+    /**
+     * Every prize with a probability gets exactly its available stock in
+     * tickets. The pool is sized so that the prize with the most stock per
+     * unit of probability comes up at its configured rate; the others come up
+     * at stock / size, which never exceeds their probability, and 銘謝惠顧
+     * takes the rest.
+     */
+    static int[] ticketCounts(List<PrizeSnapshot> prizes, int maxTickets) {
+        double poolSize = 0;
+        long assigned = 0;
+        int[] counts = new int[prizes.size()];
+        int emptyIndex = -1;
+        for (int i = 0; i < prizes.size(); i++) {
+            PrizeSnapshot prize = prizes.get(i);
+            if (EMPTY_PRIZE_NAME.equals(prize.name())) {
+                if (emptyIndex < 0) {
+                    emptyIndex = i;
+                }
+                continue;
+            }
+            if (prize.probability() == null || prize.probability() <= 0) {
+                continue;
+            }
+            if (prize.availableStock() == null) {
+                throw new RuntimeException("票池模式的獎品必須設定庫存：" + prize.name());
+            }
+            counts[i] = Math.max(0, prize.availableStock());
+            assigned += counts[i];
+            poolSize = Math.max(poolSize, counts[i] / prize.probability());
+        }
+        if (assigned == 0) {
+            throw new RuntimeException("票池模式需要至少一個有機率與庫存的獎品");
+        }
+        // Without 銘謝惠顧 the pool is just the prizes
+        long total = emptyIndex < 0 ? assigned : Math.max(assigned, (long) Math.ceil(poolSize - 1e-9));
+        if (total > maxTickets) {
+            throw new RuntimeException("票池過大（" + total + " 張），超過上限 " + maxTickets
+                    + " 張；請提高獎品機率或降低庫存");
+        }
+        if (emptyIndex >= 0) {
+            counts[emptyIndex] = (int) (total - assigned);
+        }
+        return counts;
+    }
+}
@@ -1,8 +1,10 @@
 package com.amyway.luckydraw.service;
 
+import com.amyway.luckydraw.cache.DrawRejectionCache;
 import com.amyway.luckydraw.domain.User;
 import com.amyway.luckydraw.dto.CreateUserRequest;
 import com.amyway.luckydraw.dto.UpdateUserRequest;
+import com.amyway.luckydraw.dto.UserSummary;
 import com.amyway.luckydraw.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,6 +17,7 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final DrawRejectionCache drawRejectionCache;
 
     @Transactional
     public User createUser(CreateUserRequest request) {
@@ -33,6 +36,13 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public List<UserSummary> listUserSummaries(String name) {
+        if (name != null && !name.trim().isEmpty()) {
+            return userRepository.findByNameContaining(name.trim(), UserSummary.class);
+        }
+        return userRepository.findAllBy(UserSummary.class);
+    }
+
     public User getUser(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("找不到 ID 為該值的用戶: " + id));
@@ -45,6 +55,10 @@ public class UserService {
             user.setName(request.getName());
         }
         if (request.getDrawQuota() != null) {
+            // A raised quota must not keep answering from remembered rejections
+            if (user.getDrawQuota() == null || request.getDrawQuota() > user.getDrawQuota()) {
+                drawRejectionCache.invalidateUser(id);
+            }
             user.setDrawQuota(request.getDrawQuota());
         }
         return userRepository.save(user);
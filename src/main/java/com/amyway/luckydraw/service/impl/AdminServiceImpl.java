@@ -1,10 +1,17 @@
 package com.amyway.luckydraw.service.impl;
 
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.cache.DrawRejectionCache;
 import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
 import com.amyway.luckydraw.domain.Prize;
 import com.amyway.luckydraw.repository.ActivityRepository;
 import com.amyway.luckydraw.repository.PrizeRepository;
 import com.amyway.luckydraw.service.AdminService;
+import com.amyway.luckydraw.service.StockReservationRouter;
+import com.amyway.luckydraw.service.StockStreamService;
+import com.amyway.luckydraw.service.TicketPoolService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,13 +19,31 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.amyway.luckydraw.domain.DrawRecord;
 import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordSlice;
+import com.amyway.luckydraw.dto.DrawRecordView;
+import com.amyway.luckydraw.dto.ActivitySummary;
+import com.amyway.luckydraw.dto.PrizeSummary;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.amyway.luckydraw.repository.DrawRecordQueryRepository;
 import com.amyway.luckydraw.repository.DrawRecordRepository;
+import com.amyway.luckydraw.repository.UserRepository;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import java.math.BigDecimal;
 
 
@@ -27,9 +52,19 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class AdminServiceImpl implements AdminService {
 
+    private static final int MAX_KEYSET_PAGE_SIZE = 1000;
+
     private final ActivityRepository activityRepository;
     private final PrizeRepository prizeRepository;
     private final DrawRecordRepository drawRecordRepository;
+    private final DrawRecordQueryRepository drawRecordQueryRepository;
+    private final StockReservationRouter stockReservationRouter;
+    private final ActivityConfigCache activityConfigCache;
+    private final TicketPoolService ticketPoolService;
+    private final DrawRejectionCache drawRejectionCache;
+    private final DrawRecordPartitionRouter drawRecordPartitionRouter;
+    private final UserRepository userRepository;
+    private final StockStreamService stockStreamService;
 
     @Override
     @Transactional
@@ -42,6 +77,8 @@ public class AdminServiceImpl implements AdminService {
             }
         }
 
+        stockReservationRouter.checkSupported(activity.getStockMode());
+
         List<Prize> prizes = new java.util.ArrayList<>();
         if (prizeIds != null && !prizeIds.isEmpty()) {
             prizes = prizeRepository.findAllById(prizeIds);
@@ -68,6 +105,23 @@ public class AdminServiceImpl implements AdminService {
                     throw new RuntimeException("獎品 '" + p.getName() + "' (ID: " + p.getId() + ") 已無庫存");
                 }
             }
+
+            // 3.1 Validation: a ticket pool owns its prizes' stock, so those prizes cannot be shared,
+            // and activities sharing a prize must reserve its stock the same way
+            for (Prize p : prizes) {
+                for (Activity other : activityRepository.findByPrizesId(p.getId())) {
+                    if (activity.getDrawMode() == DrawMode.TICKET_POOL || other.getDrawMode() == DrawMode.TICKET_POOL) {
+                        throw new RuntimeException("獎品 '" + p.getName() + "' 已用於活動 '" + other.getName()
+                                + "'，票池模式活動的獎品不可與其他活動共用");
+                    }
+                    // Two modes would each count the prize's stock on their own
+                    if (stockReservationRouter.resolve(activity.getStockMode())
+                            != stockReservationRouter.resolve(other.getStockMode())) {
+                        throw new RuntimeException("獎品 '" + p.getName() + "' 已用於活動 '" + other.getName()
+                                + "'，共用獎品的活動須使用相同的庫存模式");
+                    }
+                }
+            }
         }
 
         // 4. Probability Check & Auto-fill
@@ -99,12 +153,39 @@ public class AdminServiceImpl implements AdminService {
         // Link finalized prizes to activity
         activity.getPrizes().addAll(prizes);
 
-        return activityRepository.save(activity);
+        Activity saved = activityRepository.save(activity);
+        activityConfigCache.evict(saved.getId());
+        drawRejectionCache.invalidateActivity(saved.getId());
+        if (saved.getDrawMode() == DrawMode.TICKET_POOL) {
+            // Inside the transaction, so a pool that cannot be built rolls the activity back
+            ticketPoolService.create(ActivitySnapshot.of(saved, prizes));
+        }
+        return saved;
     }
 
     @Override
     public List<Activity> listActivities() {
-        return activityRepository.findAll();
+        return activityRepository.findAllWithPrizes();
+    }
+
+    @Override
+    public Page<Activity> listActivities(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        }
+        Page<Long> ids = activityRepository.findPageOfIds(pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        // Back into the page's order
+        Map<Long, Activity> byId = activityRepository.findWithPrizesByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Activity::getId, activity -> activity));
+        return ids.map(byId::get);
+    }
+
+    @Override
+    public List<ActivitySummary> listActivitySummaries() {
+        return activityRepository.findSummaries();
     }
 
     @Override
@@ -121,16 +202,33 @@ public class AdminServiceImpl implements AdminService {
     @Override
     @Transactional
     public Prize updatePrize(Long id, Prize prizeDetails) {
+        // Make sure stock granted outside the database is reflected before we read it
+        stockReservationRouter.flush(id);
+        ticketPoolService.flush(id);
+
         Prize prize = prizeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("找不到獎品: " + id));
 
         // 1. Validate and Balance affected Activities
-        List<Activity> activities = activityRepository.findByPrizesId(id);
+        // Fetched with their prizes: the rebalancing below walks every activity's prize list
+        List<Activity> activities = activityRepository.findWithPrizesByPrizeId(id);
 
         // Double precision epsilon
         double epsilon = 0.0001;
 
         for (Activity activity : activities) {
+            activityConfigCache.evict(activity.getId());
+            drawRejectionCache.invalidateActivity(activity.getId());
+
+            // The pool was shuffled from this prize's probability and stock
+            if (activity.getDrawMode() == DrawMode.TICKET_POOL
+                    && (!Objects.equals(prize.getProbability(), prizeDetails.getProbability())
+                            || !Objects.equals(prize.getTotalStock(), prizeDetails.getTotalStock())
+                            || (prizeDetails.getAvailableStock() != null
+                                    && !prizeDetails.getAvailableStock().equals(prize.getAvailableStock())))) {
+                throw new RuntimeException("獎品已用於票池模式活動 '" + activity.getName() + "'，不可修改機率或庫存");
+            }
+
             BigDecimal otherPrizesProbSumBd = BigDecimal.ZERO;
             Prize thankYouPrize = null;
             boolean thankYouIsTarget = false;
@@ -203,7 +301,10 @@ public class AdminServiceImpl implements AdminService {
             prize.setAvailableStock(prizeDetails.getAvailableStock());
         }
 
-        return prizeRepository.save(prize);
+        Prize saved = prizeRepository.save(prize);
+        stockReservationRouter.evict(id);
+        stockStreamService.updated(saved);
+        return saved;
     }
 
     @Override
@@ -215,7 +316,15 @@ public class AdminServiceImpl implements AdminService {
         // But deletePrize usually means "Remove this prize definition from system" or
         // "From activity"?
         // API is DELETE /prizes/{id}. Implies global delete.
+        for (Activity activity : activityRepository.findByPrizesId(id)) {
+            if (activity.getDrawMode() == DrawMode.TICKET_POOL) {
+                throw new RuntimeException("獎品已用於票池模式活動 '" + activity.getName() + "'，不可刪除");
+            }
+            activityConfigCache.evict(activity.getId());
+            drawRejectionCache.invalidateActivity(activity.getId());
+        }
         prizeRepository.deleteById(id);
+        stockReservationRouter.evict(id);
     }
 
     @Override
@@ -223,6 +332,11 @@ public class AdminServiceImpl implements AdminService {
         return prizeRepository.findByActivityId(activityId);
     }
 
+    @Override
+    public List<PrizeSummary> listPrizeSummaries(Long activityId) {
+        return prizeRepository.findSummariesByActivityId(activityId);
+    }
+
     @Override
     public boolean validateActivityConfig(Long activityId) {
         List<Prize> prizes = prizeRepository.findByActivityId(activityId);
@@ -242,6 +356,9 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public Page<DrawRecord> getDrawRecords(DrawRecordQueryRequest request, Pageable pageable) {
+        if (drawRecordPartitionRouter.isEnabled()) {
+            return getPartitionedDrawRecords(request, pageable);
+        }
         return drawRecordRepository.findAll((root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -273,4 +390,56 @@ public class AdminServiceImpl implements AdminService {
             return cb.and(predicates.toArray(new Predicate[0]));
         }, pageable);
     }
+
+    // Partition tables have no entity mapping: page over the pruned partitions
+    // newest first, then attach the users in one query
+    private Page<DrawRecord> getPartitionedDrawRecords(DrawRecordQueryRequest request, Pageable pageable) {
+        List<DrawRecordView> rows = drawRecordQueryRepository.findOffsetPage(request, pageable.getOffset(),
+                pageable.getPageSize());
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(rows.stream().map(DrawRecordView::getUserId).filter(Objects::nonNull)
+                .collect(Collectors.toSet())).forEach(user -> users.put(user.getId(), user));
+        List<DrawRecord> records = rows.stream().map(row -> {
+            DrawRecord record = new DrawRecord();
+            record.setId(row.getId());
+            record.setUser(users.get(row.getUserId()));
+            record.setActivityId(row.getActivityId());
+            record.setPrizeId(row.getPrizeId());
+            record.setPrizeName(row.getPrizeName());
+            record.setDrawTime(row.getDrawTime());
+            record.setIsWin(row.getIsWin());
+            return record;
+        }).toList();
+        return new PageImpl<>(records, pageable, drawRecordQueryRepository.count(request));
+    }
+
+    @Override
+    public DrawRecordSlice getDrawRecordsAfter(DrawRecordQueryRequest request, String cursor) {
+        int size = Math.clamp(request.getSize() == null ? 10 : request.getSize(), 1, MAX_KEYSET_PAGE_SIZE);
+
+        LocalDateTime afterDrawTime = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+                afterDrawTime = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("無效的分頁游標");
+            }
+        }
+
+        // One extra row tells us whether there is a next page without counting
+        List<DrawRecordView> rows = drawRecordQueryRepository.findPage(request, afterDrawTime, afterId, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DrawRecordView> records = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            DrawRecordView last = records.get(records.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getDrawTime() + "," + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new DrawRecordSlice(records, hasNext, nextCursor);
+    }
 }
@@ -0,0 +1,251 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.service.DrawStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Walker/Vose alias method: O(n) to build a table per activity, O(1) and
+ * allocation-free per draw afterwards.
+ * <p>
+ * Produces the same distribution as {@link WeightedRandomDrawStrategy}: the
+ * probability mass of out-of-stock prizes (and any gap below 100%) goes to the
+ * "銘謝惠顧" prize. A cached table is rebuilt when the sampled prize turns out to
+ * be out of stock or its probability no longer matches the one the table was
+ * built from, and when a prize the table left out (sold out or at probability
+ * 0) has been restocked or given a probability since.
+ */
+@Service
+@ConditionalOnProperty(name = "luckydraw.draw.strategy", havingValue = "alias")
+public class AliasTableDrawStrategy implements DrawStrategy {
+
+    private static final String EMPTY_PRIZE_NAME = "銘謝惠顧";
+
+    // Each rebuild removes at least one stale prize, so this only bounds pathological input
+    private static final int MAX_REBUILDS = 8;
+
+    private final Map<Long, AliasTable> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public Prize draw(List<Prize> prizes) {
+        if (prizes == null || prizes.isEmpty()) {
+            return null;
+        }
+        // No activity to cache against, so the table is built for this draw only
+        return pick(AliasTable.build(prizes), prizes);
+    }
+
+    @Override
+    public Prize draw(Long activityId, List<Prize> prizes) {
+        if (activityId == null) {
+            return draw(prizes);
+        }
+        if (prizes == null || prizes.isEmpty()) {
+            return null;
+        }
+
+        AliasTable table = tables.get(activityId);
+        for (int attempt = 0; attempt < MAX_REBUILDS; attempt++) {
+            if (table == null || table.size() != prizes.size() || table.dormantChanged(prizes)) {
+                table = AliasTable.build(prizes);
+                tables.put(activityId, table);
+            }
+
+            int index = table.sample();
+            if (index < 0) {
+                return null;
+            }
+            Prize prize = prizes.get(index);
+            if (table.isCurrent(index, prize)) {
+                return prize;
+            }
+            // Prize sold out or was reconfigured since the table was built
+            table = null;
+        }
+        return pick(AliasTable.build(prizes), prizes);
+    }
+
+    private static Prize pick(AliasTable table, List<Prize> prizes) {
+        int index = table.sample();
+        return index < 0 ? null : prizes.get(index);
+    }
+
+    private static boolean isEmptyPrize(Prize prize) {
+        return EMPTY_PRIZE_NAME.equals(prize.getName());
+    }
+
+    private static boolean inStock(Prize prize) {
+        return prize.getAvailableStock() != null && prize.getAvailableStock() > 0;
+    }
+
+    private static double probabilityOf(Prize prize) {
+        return prize.getProbability() == null ? 0.0 : prize.getProbability();
+    }
+
+    /**
+     * Immutable alias table. Columns map to indexes in the prize list the table
+     * was built from; {@code -1} stands for "no prize" when the list has no
+     * "銘謝惠顧" entry to absorb the leftover probability.
+     */
+    static final class AliasTable {
+
+        private final int size;
+        private final Long[] prizeIds;
+        private final double[] probabilities;
+        private final int[] outcomes;
+        private final double[] thresholds;
+        private final int[] aliases;
+        // Prizes with no column of their own; they are never sampled, so isCurrent cannot notice a restock
+        private final int[] dormant;
+
+        private AliasTable(int size, Long[] prizeIds, double[] probabilities,
+                int[] outcomes, double[] thresholds, int[] aliases, int[] dormant) {
+            this.size = size;
+            this.prizeIds = prizeIds;
+            this.probabilities = probabilities;
+            this.outcomes = outcomes;
+            this.thresholds = thresholds;
+            this.aliases = aliases;
+            this.dormant = dormant;
+        }
+
+        static AliasTable build(List<Prize> prizes) {
+            int n = prizes.size();
+            Long[] prizeIds = new Long[n];
+            double[] probabilities = new double[n];
+
+            int emptyIndex = -1;
+            double inStockTotal = 0.0;
+            double[] weights = new double[n + 1];
+            int[] dormant = new int[n];
+            int dormantCount = 0;
+            for (int i = 0; i < n; i++) {
+                Prize prize = prizes.get(i);
+                prizeIds[i] = prize.getId();
+                probabilities[i] = probabilityOf(prize);
+                if (emptyIndex < 0 && isEmptyPrize(prize)) {
+                    emptyIndex = i;
+                }
+                if (inStock(prize) && probabilities[i] > 0) {
+                    weights[i] = probabilities[i];
+                    inStockTotal += probabilities[i];
+                } else if (!isEmptyPrize(prize)) {
+                    dormant[dormantCount++] = i;
+                }
+            }
+            dormant = Arrays.copyOf(dormant, dormantCount);
+
+            // Mass not covered by in-stock prizes goes to "銘謝惠顧", or to "no prize"
+            double residual = Math.max(0.0, 1.0 - inStockTotal);
+            if (emptyIndex >= 0) {
+                weights[emptyIndex] += residual;
+            } else {
+                weights[n] = residual;
+            }
+
+            int columns = 0;
+            for (double weight : weights) {
+                if (weight > 0) {
+                    columns++;
+                }
+            }
+            if (columns == 0) {
+                return new AliasTable(n, prizeIds, probabilities, new int[] { -1 },
+                        new double[] { 1.0 }, new int[] { 0 }, dormant);
+            }
+
+            int[] outcomes = new int[columns];
+            double[] scaled = new double[columns];
+            double total = Math.max(1.0, inStockTotal);
+            for (int i = 0, column = 0; i <= n; i++) {
+                if (weights[i] > 0) {
+                    outcomes[column] = i == n ? -1 : i;
+                    scaled[column] = weights[i] / total * columns;
+                    column++;
+                }
+            }
+
+            // Vose's algorithm
+            double[] thresholds = new double[columns];
+            int[] aliases = new int[columns];
+            int[] small = new int[columns];
+            int[] large = new int[columns];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < columns; i++) {
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                thresholds[less] = scaled[less];
+                aliases[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            // Leftovers are 1.0 up to rounding error
+            while (largeCount > 0) {
+                int column = large[--largeCount];
+                thresholds[column] = 1.0;
+                aliases[column] = column;
+            }
+            while (smallCount > 0) {
+                int column = small[--smallCount];
+                thresholds[column] = 1.0;
+                aliases[column] = column;
+            }
+
+            return new AliasTable(n, prizeIds, probabilities, outcomes, thresholds, aliases, dormant);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int sample() {
+            double u = ThreadLocalRandom.current().nextDouble() * outcomes.length;
+            int column = Math.min((int) u, outcomes.length - 1);
+            return (u - column) < thresholds[column] ? outcomes[column] : outcomes[aliases[column]];
+        }
+
+        // O(number of left-out prizes), which is zero until something sells out
+        boolean dormantChanged(List<Prize> prizes) {
+            for (int index : dormant) {
+                Prize prize = prizes.get(index);
+                if (!Objects.equals(prizeIds[index], prize.getId())
+                        || Double.compare(probabilities[index], probabilityOf(prize)) != 0
+                        || (inStock(prize) && probabilityOf(prize) > 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Checks only the sampled entry, keeping validation O(1) per draw
+        boolean isCurrent(int index, Prize prize) {
+            if (!Objects.equals(prizeIds[index], prize.getId())) {
+                return false;
+            }
+            if (Double.compare(probabilities[index], probabilityOf(prize)) != 0) {
+                return false;
+            }
+            return isEmptyPrize(prize) || inStock(prize);
+        }
+    }
+}
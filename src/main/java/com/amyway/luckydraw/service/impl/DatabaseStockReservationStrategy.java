@@ -0,0 +1,44 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class DatabaseStockReservationStrategy implements StockReservationStrategy {
+
+    private final PrizeRepository prizeRepository;
+
+    @Override
+    public StockMode mode() {
+        return StockMode.DATABASE;
+    }
+
+    @Override
+    public boolean reserve(Long prizeId) {
+        // Conditional UPDATE ... WHERE availableStock > 0 in the caller's transaction
+        return prizeRepository.decrementStock(prizeId) > 0;
+    }
+
+    @Override
+    public int reserve(Long prizeId, int quantity) {
+        while (quantity > 0) {
+            if (prizeRepository.decrementStockIfAvailable(prizeId, quantity) > 0) {
+                return quantity;
+            }
+            // Not enough left for all of them: settle for what the row still holds
+            Integer available = prizeRepository.findAvailableStockById(prizeId);
+            quantity = Math.min(quantity - 1, available == null ? 0 : available);
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isSoldOut(Long prizeId) {
+        Integer available = prizeRepository.findAvailableStockById(prizeId);
+        return available == null || available <= 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single-node idempotency store. Entries expire after their TTL and the
+ * oldest are dropped once max-entries is reached; both happen on the claim
+ * path, so there is no background sweeper.
+ */
+@Component
+@ConditionalOnProperty(name = "luckydraw.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final long ttlMillis;
+    private final long inFlightTtlMillis;
+    private final int maxEntries;
+    private final Map<String, Slot> entries = new ConcurrentHashMap<>();
+    // Slots in the order they were written; stale ones are skipped when they reach the head
+    private final Queue<Slot> writeOrder = new ConcurrentLinkedQueue<>();
+
+    private record Slot(String key, Entry entry, long expiresAt) {
+    }
+
+    public InMemoryIdempotencyStore(@Value("${luckydraw.idempotency.ttl:600000}") long ttlMillis,
+            @Value("${luckydraw.idempotency.in-flight-ttl:30000}") long inFlightTtlMillis,
+            @Value("${luckydraw.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.inFlightTtlMillis = inFlightTtlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Entry claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        purge(now);
+        Slot claimed = new Slot(key, new Entry(fingerprint, null), now + inFlightTtlMillis);
+        Slot current = entries.compute(key,
+                (k, existing) -> existing != null && existing.expiresAt() > now ? existing : claimed);
+        if (current != claimed) {
+            return current.entry();
+        }
+        writeOrder.add(claimed);
+        return null;
+    }
+
+    @Override
+    public void complete(String key, String fingerprint, List<DrawResult> results) {
+        Slot completed = new Slot(key, new Entry(fingerprint, List.copyOf(results)),
+                System.currentTimeMillis() + ttlMillis);
+        entries.put(key, completed);
+        writeOrder.add(completed);
+    }
+
+    @Override
+    public void release(String key) {
+        entries.remove(key);
+    }
+
+    private void purge(long now) {
+        Slot head;
+        while ((head = writeOrder.peek()) != null) {
+            boolean current = entries.get(head.key()) == head;
+            if (current && head.expiresAt() > now && entries.size() < maxEntries) {
+                return;
+            }
+            if (writeOrder.remove(head) && current) {
+                entries.remove(head.key(), head);
+            }
+        }
+    }
+}
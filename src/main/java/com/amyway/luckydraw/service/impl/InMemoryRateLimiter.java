@@ -0,0 +1,46 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.service.RateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node buckets: one AtomicLong per key advanced with CAS, no locks.
+ * Buckets that have refilled completely carry no state and are dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "luckydraw.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, Limit limit) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long tat = bucket.get();
+            // Theoretical arrival time of the next request if this one is let through
+            long next = (tat == Long.MIN_VALUE || tat - now < 0 ? now : tat) + limit.intervalNanos();
+            long wait = next - now - limit.burstNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket whose arrival time has passed is full again, same as a missing one
+    @Scheduled(fixedDelayString = "${luckydraw.rate-limit.idle-sweep-interval:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now < 0);
+    }
+}
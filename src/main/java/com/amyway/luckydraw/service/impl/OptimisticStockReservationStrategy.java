@@ -0,0 +1,86 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads the prize's stock and @Version, then decrements only if the version
+ * is unchanged. A conflicting draw backs off for a random delay of up to
+ * backoff * 2^attempt (capped at max-backoff) and retries; after max-attempts
+ * conflicts the rest of the request falls back to EMPTY, but the prize stays
+ * on offer to later draws since {@link #isSoldOut} still sees its stock. Retries must see other transactions' commits, so the database has to
+ * run at READ COMMITTED (H2 and PostgreSQL default; MySQL needs
+ * transaction-isolation=READ-COMMITTED).
+ */
+@Slf4j
+@Service
+public class OptimisticStockReservationStrategy implements StockReservationStrategy {
+
+    private final PrizeRepository prizeRepository;
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticStockReservationStrategy(PrizeRepository prizeRepository,
+            @Value("${luckydraw.stock.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${luckydraw.stock.optimistic.backoff:1}") long backoffMillis,
+            @Value("${luckydraw.stock.optimistic.max-backoff:20}") long maxBackoffMillis) {
+        this.prizeRepository = prizeRepository;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMillis);
+    }
+
+    @Override
+    public StockMode mode() {
+        return StockMode.OPTIMISTIC;
+    }
+
+    @Override
+    public boolean reserve(Long prizeId) {
+        return reserve(prizeId, 1) == 1;
+    }
+
+    @Override
+    public int reserve(Long prizeId, int quantity) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (attempt > 0) {
+                backOff(attempt);
+            }
+            PrizeRepository.VersionedStock stock = prizeRepository.findVersionedStockById(prizeId).orElse(null);
+            if (stock == null || stock.availableStock() == null || stock.availableStock() <= 0) {
+                return 0;
+            }
+            // Settle for what the row holds now rather than retrying for units that are gone
+            int wanted = Math.min(quantity, stock.availableStock());
+            if (prizeRepository.decrementStockIfVersion(prizeId, wanted, stock.version()) > 0) {
+                return wanted;
+            }
+        }
+        log.debug("Gave up reserving prize {} after {} version conflicts", prizeId, maxAttempts);
+        return 0;
+    }
+
+    // Giving up after max-attempts conflicts leaves stock in the row, so this re-reads it
+    @Override
+    public boolean isSoldOut(Long prizeId) {
+        Integer available = prizeRepository.findAvailableStockById(prizeId);
+        return available == null || available <= 0;
+    }
+
+    // Full jitter, so retrying draws do not collide again in lockstep
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, backoffNanos << Math.min(attempt - 1, 20));
+        if (ceiling > 0) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }
+    }
+}
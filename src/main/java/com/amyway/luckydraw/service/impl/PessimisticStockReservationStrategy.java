@@ -0,0 +1,51 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Locks the Prize row with SELECT ... FOR UPDATE and decrements the managed
+ * entity, so the write goes through @Version like any other entity update.
+ * Draws on the same prize queue on the row lock until the drawing transaction
+ * commits; they never fall back while stock remains.
+ */
+@Service
+@RequiredArgsConstructor
+public class PessimisticStockReservationStrategy implements StockReservationStrategy {
+
+    private final PrizeRepository prizeRepository;
+
+    @Override
+    public StockMode mode() {
+        return StockMode.PESSIMISTIC;
+    }
+
+    @Override
+    public boolean reserve(Long prizeId) {
+        return reserve(prizeId, 1) == 1;
+    }
+
+    @Override
+    public int reserve(Long prizeId, int quantity) {
+        // Must run in the caller's transaction: the lock and the decrement commit together
+        Prize prize = prizeRepository.findByIdForUpdate(prizeId).orElse(null);
+        if (prize == null || prize.getAvailableStock() == null) {
+            return 0;
+        }
+        int granted = Math.min(quantity, Math.max(0, prize.getAvailableStock()));
+        if (granted > 0) {
+            prize.setAvailableStock(prize.getAvailableStock() - granted);
+        }
+        return granted;
+    }
+
+    @Override
+    public boolean isSoldOut(Long prizeId) {
+        Integer available = prizeRepository.findAvailableStockById(prizeId);
+        return available == null || available <= 0;
+    }
+}
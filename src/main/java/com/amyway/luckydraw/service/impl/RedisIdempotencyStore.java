@@ -0,0 +1,83 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.service.IdempotencyStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Idempotency keys shared by every node: one script claims a key or returns
+ * the entry already there, the committed results replace the claim, and
+ * Redis expires both.
+ */
+@Component
+@ConditionalOnProperty(name = "luckydraw.idempotency.store", havingValue = "redis")
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String KEY_PREFIX = "luckydraw:idempotency:";
+
+    // Returns the existing entry, or nil after claiming the key for ARGV[2] ms
+    private static final RedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local existing = redis.call('GET', KEYS[1])
+            if existing then return existing end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return false
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inFlightTtl;
+
+    public RedisIdempotencyStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            @Value("${luckydraw.idempotency.ttl:600000}") long ttlMillis,
+            @Value("${luckydraw.idempotency.in-flight-ttl:30000}") long inFlightTtlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.inFlightTtl = Duration.ofMillis(inFlightTtlMillis);
+    }
+
+    @Override
+    public Entry claim(String key, String fingerprint) {
+        // Checking and claiming in one step, so an entry expiring in between cannot be missed
+        String existing = redisTemplate.execute(CLAIM_SCRIPT, List.of(KEY_PREFIX + key),
+                write(new Entry(fingerprint, null)), String.valueOf(inFlightTtl.toMillis()));
+        return existing == null ? null : read(existing);
+    }
+
+    @Override
+    public void complete(String key, String fingerprint, List<DrawResult> results) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + key, write(new Entry(fingerprint, results)), ttl);
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(KEY_PREFIX + key);
+    }
+
+    private String write(Entry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotency entry", e);
+        }
+    }
+
+    private Entry read(String json) {
+        try {
+            return objectMapper.readValue(json, Entry.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read idempotency entry", e);
+        }
+    }
+}
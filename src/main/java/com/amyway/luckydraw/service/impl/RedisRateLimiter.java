@@ -0,0 +1,46 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Buckets shared by every node. The same GCRA step as the in-memory limiter
+ * runs as one script against the Redis clock, so nodes with skewed clocks
+ * still agree; idle buckets expire on their own.
+ */
+@Component
+@ConditionalOnProperty(name = "luckydraw.rate-limit.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "luckydraw:rate:";
+
+    // Times in microseconds; returns 0 when granted, otherwise the wait
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local next = tat + tonumber(ARGV[1])
+            local wait = next - now - tonumber(ARGV[2])
+            if wait > 0 then return wait end
+            redis.call('SET', KEYS[1], next, 'PX', math.ceil((next - now) / 1000) + 1)
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public long tryAcquire(String key, Limit limit) {
+        Long waitMicros = redisTemplate.execute(ACQUIRE_SCRIPT, List.of(KEY_PREFIX + key),
+                String.valueOf(limit.intervalNanos() / 1000), String.valueOf(limit.burstNanos() / 1000));
+        return waitMicros == null ? 0 : waitMicros * 1000;
+    }
+}
@@ -0,0 +1,127 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.service.StockCounterStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "luckydraw.stock.mode", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisStockCounterStore implements StockCounterStore {
+
+    private static final String STOCK_KEY_PREFIX = "luckydraw:stock:";
+    private static final String PENDING_KEY = "luckydraw:stock:pending";
+
+    // Counter decrement and pending write-back are recorded together, so a
+    // crash can never lose one without the other
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local stock = redis.call('GET', KEYS[1])
+            if not stock then return -1 end
+            local quantity = tonumber(ARGV[2])
+            if tonumber(stock) < quantity then return -2 end
+            redis.call('HINCRBY', KEYS[2], ARGV[1], quantity)
+            return redis.call('DECRBY', KEYS[1], quantity)
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('INCRBY', KEYS[1], ARGV[2])
+            end
+            redis.call('HINCRBY', KEYS[2], ARGV[1], -tonumber(ARGV[2]))
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> TAKE_PENDING_SCRIPT = new DefaultRedisScript<>("""
+            local pending = redis.call('HGET', KEYS[1], ARGV[1])
+            if not pending then return 0 end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            return tonumber(pending)
+            """, Long.class);
+
+    private static final RedisScript<Long> RESEED_SCRIPT = new DefaultRedisScript<>("""
+            local previous = redis.call('GET', KEYS[1])
+            local pending = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+            redis.call('SET', KEYS[1], math.max(0, tonumber(ARGV[2]) - pending))
+            if not previous then return -1 end
+            return tonumber(previous)
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public long reserve(Long prizeId, int quantity) {
+        Long result = redisTemplate.execute(RESERVE_SCRIPT, List.of(stockKey(prizeId), PENDING_KEY),
+                String.valueOf(prizeId), String.valueOf(quantity));
+        return result == null ? MISSING : result;
+    }
+
+    @Override
+    public void release(Long prizeId, int quantity) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(stockKey(prizeId), PENDING_KEY),
+                String.valueOf(prizeId), String.valueOf(quantity));
+    }
+
+    @Override
+    public boolean seed(Long prizeId, int stock) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(stockKey(prizeId), String.valueOf(stock)));
+    }
+
+    @Override
+    public Integer get(Long prizeId) {
+        String value = redisTemplate.opsForValue().get(stockKey(prizeId));
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    @Override
+    public void set(Long prizeId, int stock) {
+        redisTemplate.opsForValue().set(stockKey(prizeId), String.valueOf(stock));
+    }
+
+    @Override
+    public long reseed(Long prizeId, int databaseStock) {
+        Long previous = redisTemplate.execute(RESEED_SCRIPT, List.of(stockKey(prizeId), PENDING_KEY),
+                String.valueOf(prizeId), String.valueOf(databaseStock));
+        return previous == null ? MISSING : previous;
+    }
+
+    @Override
+    public void delete(Long prizeId) {
+        redisTemplate.delete(stockKey(prizeId));
+    }
+
+    @Override
+    public Set<Long> pendingPrizeIds() {
+        return redisTemplate.<String, String>opsForHash().keys(PENDING_KEY).stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public int getPending(Long prizeId) {
+        Object value = redisTemplate.opsForHash().get(PENDING_KEY, String.valueOf(prizeId));
+        return value == null ? 0 : Integer.parseInt(value.toString());
+    }
+
+    @Override
+    public int takePending(Long prizeId) {
+        Long taken = redisTemplate.execute(TAKE_PENDING_SCRIPT, List.of(PENDING_KEY), String.valueOf(prizeId));
+        return taken == null ? 0 : taken.intValue();
+    }
+
+    @Override
+    public void addPending(Long prizeId, int quantity) {
+        redisTemplate.opsForHash().increment(PENDING_KEY, String.valueOf(prizeId), quantity);
+    }
+
+    private static String stockKey(Long prizeId) {
+        return STOCK_KEY_PREFIX + prizeId;
+    }
+}
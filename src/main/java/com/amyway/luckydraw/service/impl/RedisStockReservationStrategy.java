@@ -0,0 +1,149 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockCounterStore;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps availableStock counters in Redis and decrements them with a Lua
+ * script, so winning draws never contend on the Prize rows. Decrements are
+ * written back to the Prize table asynchronously.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "luckydraw.stock.mode", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisStockReservationStrategy implements StockReservationStrategy {
+
+    private final PrizeRepository prizeRepository;
+    private final StockCounterStore stockCounterStore;
+
+    @Override
+    public StockMode mode() {
+        return StockMode.REDIS;
+    }
+
+    @Override
+    public boolean reserve(Long prizeId) {
+        return reserve(prizeId, 1) == 1;
+    }
+
+    @Override
+    public int reserve(Long prizeId, int quantity) {
+        while (quantity > 0) {
+            long result = stockCounterStore.reserve(prizeId, quantity);
+            if (result == StockCounterStore.MISSING) {
+                seed(prizeId);
+                result = stockCounterStore.reserve(prizeId, quantity);
+            }
+            if (result >= 0) {
+                releaseOnRollback(prizeId, quantity);
+                return quantity;
+            }
+            if (result == StockCounterStore.MISSING) {
+                return 0;
+            }
+            // Not enough left for all of them: settle for what the counter still holds
+            Integer available = stockCounterStore.get(prizeId);
+            quantity = Math.min(quantity - 1, available == null ? 0 : available);
+        }
+        return 0;
+    }
+
+    // An unseeded counter proves nothing; the next reservation seeds it from the table
+    @Override
+    public boolean isSoldOut(Long prizeId) {
+        Integer available = stockCounterStore.get(prizeId);
+        return available != null && available <= 0;
+    }
+
+    @Override
+    public void flush(Long prizeId) {
+        writeBack(prizeId);
+    }
+
+    @Override
+    public void evict(Long prizeId) {
+        stockCounterStore.delete(prizeId);
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.stock.write-back-interval:1000}")
+    public void flushPending() {
+        for (Long prizeId : stockCounterStore.pendingPrizeIds()) {
+            writeBack(prizeId);
+        }
+    }
+
+    // Several nodes may run this at once: the pending ledger is drained atomically, so
+    // each decrement is replayed once, and reseeding only ever rewrites Redis
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        // The ledger is the only record of decrements the Prize table is still owed
+        flushPending();
+        for (Prize prize : prizeRepository.findAll()) {
+            int databaseStock = prize.getAvailableStock() == null ? 0 : prize.getAvailableStock();
+            // Reservations made since the flush are still pending and count against the table
+            long previous = stockCounterStore.reseed(prize.getId(), databaseStock);
+            long expected = Math.max(0, databaseStock - stockCounterStore.getPending(prize.getId()));
+            if (previous != StockCounterStore.MISSING && previous != expected) {
+                // Restocked or edited while Redis held another count; the Prize table wins
+                log.warn("Reconciling prize {}: Redis stock {} reseeded from database stock {}",
+                        prize.getId(), previous, databaseStock);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+
+    private void seed(Long prizeId) {
+        prizeRepository.findById(prizeId).ifPresent(prize -> {
+            int databaseStock = prize.getAvailableStock() == null ? 0 : prize.getAvailableStock();
+            // Decrements still pending write-back are not reflected in the table yet
+            int stock = Math.max(0, databaseStock - stockCounterStore.getPending(prizeId));
+            stockCounterStore.seed(prizeId, stock);
+        });
+    }
+
+    private void writeBack(Long prizeId) {
+        int quantity = stockCounterStore.takePending(prizeId);
+        if (quantity == 0) {
+            return;
+        }
+        try {
+            prizeRepository.decrementStockBy(prizeId, quantity);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write back {} stock decrements for prize {}, will retry", quantity, prizeId, e);
+            stockCounterStore.addPending(prizeId, quantity);
+        }
+    }
+
+    // Redis is outside the draw transaction, so give the stock back if the draw fails
+    private void releaseOnRollback(Long prizeId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stockCounterStore.release(prizeId, quantity);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,288 @@
+package com.amyway.luckydraw.service.impl;
+
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.StockReservationStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-node stock counters: each prize's remaining stock is split across
+ * striped shards that draw threads decrement with CAS, so no draw touches the
+ * Prize row. Consumed stock is flushed to the Prize table on a fixed delay
+ * and on shutdown. Not safe with more than one application instance. Holds
+ * no counters until a MEMORY activity draws.
+ * <p>
+ * A counter is never replaced while draws may hold it. Refills and evictions
+ * resync it in place under its flush lock by the difference between the Prize
+ * table and what the counter expects the table to hold (stock distributed
+ * minus decrements written back). That difference only changes on admin
+ * edits, so units in flight between a shard CAS and the consumed count are
+ * never handed out twice.
+ */
+@Slf4j
+@Service
+public class ShardedStockReservationStrategy implements StockReservationStrategy {
+
+    private final PrizeRepository prizeRepository;
+    private final int shardCount;
+    private final long refillIntervalMillis;
+    private final Map<Long, StripedStock> counters = new ConcurrentHashMap<>();
+
+    public ShardedStockReservationStrategy(PrizeRepository prizeRepository,
+            @Value("${luckydraw.stock.shards:0}") int shards,
+            @Value("${luckydraw.stock.refill-interval:1000}") long refillIntervalMillis) {
+        this.prizeRepository = prizeRepository;
+        this.shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.refillIntervalMillis = refillIntervalMillis;
+    }
+
+    @Override
+    public StockMode mode() {
+        return StockMode.MEMORY;
+    }
+
+    @Override
+    public boolean reserve(Long prizeId) {
+        return reserve(prizeId, 1) == 1;
+    }
+
+    @Override
+    public int reserve(Long prizeId, int quantity) {
+        StripedStock stock = counters.computeIfAbsent(prizeId, this::load);
+        int granted = stock.take(quantity);
+        if (granted < quantity && refill(prizeId, stock)) {
+            granted += stock.take(quantity - granted);
+        }
+        if (granted > 0) {
+            releaseOnRollback(stock, granted);
+        }
+        return granted;
+    }
+
+    // Empty shards after reserve() already tried a refill: what the table held is handed out
+    @Override
+    public boolean isSoldOut(Long prizeId) {
+        StripedStock stock = counters.get(prizeId);
+        return stock != null && !stock.hasStock();
+    }
+
+    @Override
+    public void flush(Long prizeId) {
+        StripedStock stock = counters.get(prizeId);
+        if (stock != null) {
+            writeBack(prizeId, stock);
+        }
+    }
+
+    // Called once the admin edit has committed
+    @Override
+    public void evict(Long prizeId) {
+        StripedStock stock = counters.get(prizeId);
+        if (stock != null && !resync(prizeId, stock, true)) {
+            log.warn("Failed to resync stock of prize {} after an edit, will retry on the next refill", prizeId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${luckydraw.stock.write-back-interval:1000}")
+    public void flushPending() {
+        counters.forEach(this::writeBack);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+
+    private StripedStock load(Long prizeId) {
+        return new StripedStock(shardCount, databaseStock(prizeId));
+    }
+
+    // All shards are dry: only consult the database if stock was added behind our back
+    private boolean refill(Long prizeId, StripedStock stock) {
+        // No write-back here: it would need a second connection while the draw holds one,
+        // and the difference below does not depend on it
+        return stock.tryStartRefill(refillIntervalMillis) && resync(prizeId, stock, false) && stock.hasStock();
+    }
+
+    // Applies stock added or removed in the Prize table since the counter last looked
+    private boolean resync(Long prizeId, StripedStock stock, boolean writeBackFirst) {
+        stock.flushLock.lock();
+        try {
+            if (writeBackFirst && !writeBack(prizeId, stock)) {
+                return false;
+            }
+            long delta = databaseStock(prizeId) - stock.expectedInDatabase();
+            if (delta > 0) {
+                log.info("Refilling {} units of stock for prize {} from the database", delta, prizeId);
+                stock.distribute((int) delta);
+            } else if (delta < 0) {
+                log.info("Withdrawing {} units of stock for prize {} removed in the database", -delta, prizeId);
+                stock.withdraw((int) -delta);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to read stock of prize {} from the database", prizeId, e);
+            return false;
+        } finally {
+            stock.flushLock.unlock();
+        }
+    }
+
+    // A scalar query, so a Prize entity already loaded by the caller's transaction cannot answer it
+    private int databaseStock(Long prizeId) {
+        Integer available = prizeRepository.findAvailableStockById(prizeId);
+        return available == null ? 0 : Math.max(0, available);
+    }
+
+    private boolean writeBack(Long prizeId, StripedStock stock) {
+        stock.flushLock.lock();
+        try {
+            long quantity = stock.pendingFlush();
+            if (quantity == 0) {
+                return true;
+            }
+            prizeRepository.decrementStockBy(prizeId, (int) quantity);
+            stock.completeFlush(quantity);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write back stock decrements for prize {}, will retry", prizeId, e);
+            return false;
+        } finally {
+            stock.flushLock.unlock();
+        }
+    }
+
+    private void releaseOnRollback(StripedStock stock, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stock.release(quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * Remaining stock striped over padded slots of one array. A thread starts
+     * at its home shard and only walks the other shards once that runs dry.
+     */
+    static final class StripedStock {
+
+        // 8 longs = 64 bytes, keeps shards on separate cache lines
+        private static final int PADDING = 8;
+
+        private final int shards;
+        private final AtomicLongArray slots;
+        private final LongAdder consumed = new LongAdder();
+        private final AtomicLong flushed = new AtomicLong();
+        // Units ever put into the shards; only changed under flushLock
+        private long distributed;
+        // Counters are loaded from the database, which counts as the first refill
+        private final AtomicLong lastRefill = new AtomicLong(System.currentTimeMillis());
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        StripedStock(int shards, int stock) {
+            this.shards = shards;
+            this.slots = new AtomicLongArray(shards * PADDING);
+            distribute(stock);
+        }
+
+        // Takes up to quantity units, home shard first; returns how many were taken
+        int take(int quantity) {
+            int home = homeShard();
+            int taken = 0;
+            for (int i = 0; i < shards && taken < quantity; i++) {
+                taken += takeFrom((home + i) % shards, quantity - taken);
+            }
+            if (taken > 0) {
+                consumed.add(taken);
+            }
+            return taken;
+        }
+
+        void release(int quantity) {
+            slots.getAndAdd(homeShard() * PADDING, quantity);
+            consumed.add(-quantity);
+        }
+
+        void distribute(int stock) {
+            for (int i = 0; i < shards; i++) {
+                slots.getAndAdd(i * PADDING, stock / shards + (i < stock % shards ? 1 : 0));
+            }
+            distributed += stock;
+        }
+
+        // Takes units back out of the shards without counting them as consumed
+        void withdraw(int quantity) {
+            int withdrawn = 0;
+            for (int i = 0; i < shards && withdrawn < quantity; i++) {
+                withdrawn += takeFrom(i, quantity - withdrawn);
+            }
+            distributed -= withdrawn;
+        }
+
+        // What the Prize table holds if nobody else changed it: every decrement in it was written by us
+        long expectedInDatabase() {
+            return distributed - flushed.get();
+        }
+
+        boolean hasStock() {
+            for (int i = 0; i < shards; i++) {
+                if (slots.get(i * PADDING) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // A sum that misses in-flight increments is simply caught up by the next flush
+        long pendingFlush() {
+            return consumed.sum() - flushed.get();
+        }
+
+        void completeFlush(long quantity) {
+            flushed.addAndGet(quantity);
+        }
+
+        boolean tryStartRefill(long intervalMillis) {
+            long now = System.currentTimeMillis();
+            long last = lastRefill.get();
+            return now - last >= intervalMillis && lastRefill.compareAndSet(last, now);
+        }
+
+        private int takeFrom(int shard, int wanted) {
+            int index = shard * PADDING;
+            long current;
+            int taken;
+            do {
+                current = slots.get(index);
+                if (current <= 0) {
+                    return 0;
+                }
+                taken = (int) Math.min(current, wanted);
+            } while (!slots.compareAndSet(index, current, current - taken));
+            return taken;
+        }
+
+        private int homeShard() {
+            return (int) (Thread.currentThread().threadId() % shards);
+        }
+    }
+}
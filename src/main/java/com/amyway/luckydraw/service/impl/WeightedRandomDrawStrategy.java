@@ -2,12 +2,14 @@ package com.amyway.luckydraw.service.impl;
 
 import com.amyway.luckydraw.domain.Prize;
 import com.amyway.luckydraw.service.DrawStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Service
+@ConditionalOnProperty(name = "luckydraw.draw.strategy", havingValue = "weighted", matchIfMissing = true)
 public class WeightedRandomDrawStrategy implements DrawStrategy {
 
     @Override
@@ -21,14 +23,9 @@ public class WeightedRandomDrawStrategy implements DrawStrategy {
         // For this design, we assume EMPTY has infinite stock or separate logic,
         // but here we filter by probability > 0 and stock > 0
 
-        double totalProbability = prizes.stream()
-                .filter(p -> p.getAvailableStock() > 0)
-                .mapToDouble(Prize::getProbability)
-                .sum();
-
-        // Safety check if total probability is not 1.0 (it should ideally be normalized
-        // or handle gaps)
-        // The requirement says "Grand total including miss is 100%"
+        // Probabilities are not normalized: the requirement says "Grand total
+        // including miss is 100%", so the mass of out-of-stock prizes falls through
+        // to the "Miss" fallback below
 
         double randomValue = ThreadLocalRandom.current().nextDouble(); // 0.0 to 1.0
         double cumulativeProbability = 0.0;
@@ -0,0 +1,160 @@
+package com.amyway.luckydraw.controller;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "spring.data.redis.repositories.enabled=false",
+        "luckydraw.warmup.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.amyway.luckydraw.controller.StatementCountTest$StatementCounter"
+})
+@AutoConfigureMockMvc
+class StatementCountTest {
+
+    private static final int ACTIVITIES = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long activityId;
+    // Belongs to every activity created here
+    private Long sharedPrizeId;
+    // Belongs to the last activity only
+    private Long ownPrizeId;
+
+    @BeforeEach
+    void setUp() {
+        // One persistence context, so the shared prize stays managed while the activities cascade
+        transactionTemplate.executeWithoutResult(status -> {
+            Prize shared = prizeRepository.save(new Prize(null, "Shared", 5, 5, 0.1, null));
+            sharedPrizeId = shared.getId();
+            for (int i = 0; i < ACTIVITIES; i++) {
+                Activity activity = new Activity();
+                activity.setName("statements-" + i);
+                activity.getPrizes().add(new Prize(null, "Gold", 5, 5, 0.1, null));
+                activity.getPrizes().add(shared);
+                activity.getPrizes().add(new Prize(null, "銘謝惠顧", 100, 100, 0.8, null));
+                activity = activityRepository.saveAndFlush(activity);
+                activityId = activity.getId();
+                ownPrizeId = activity.getPrizes().get(0).getId();
+            }
+        });
+        User user = new User();
+        user.setName("statements-user");
+        userRepository.save(user);
+    }
+
+    @Test
+    void summaryEndpoints_RunOneStatementEach() throws Exception {
+        assertStatements(1, "/api/admin/activities/summary");
+        mockMvc.perform(get("/api/admin/activities/summary").header("Authorization", "Bearer admin-secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + activityId + ")].prizeCount").value(hasItem(3)))
+                .andExpect(jsonPath("$[?(@.id == " + activityId + ")].active").value(hasItem(true)))
+                .andExpect(jsonPath("$[?(@.id == " + activityId + ")].prizes").doesNotExist());
+
+        assertStatements(1, "/api/admin/activities/" + activityId + "/prizes/summary");
+        assertStatements(1, "/api/users/summary");
+        assertStatements(1, "/api/users/summary?name=statements");
+    }
+
+    @Test
+    void activityLists_FetchPrizesWithTheActivities() throws Exception {
+        assertStatements(1, "/api/admin/activities");
+        // Page of ids, count, then the page's activities with their prizes
+        assertStatements(3, "/api/admin/activities/page?page=0&size=2");
+        mockMvc.perform(get("/api/admin/activities/page?page=0&size=2").header("Authorization", "Bearer admin-secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].prizes").isArray());
+    }
+
+    @Test
+    void updatePrize_ReadsAllSharingActivitiesAtOnce() throws Exception {
+        int ownSelects = updateSelects(ownPrizeId);
+        int sharedSelects = updateSelects(sharedPrizeId);
+
+        // Same reads whether one activity or all of them hold the prize
+        assertEquals(ownSelects, sharedSelects);
+    }
+
+    private int updateSelects(Long prizeId) throws Exception {
+        StatementCounter.reset();
+        mockMvc.perform(put("/api/admin/prizes/" + prizeId)
+                        .header("Authorization", "Bearer admin-secret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Updated\",\"totalStock\":5,\"probability\":0.15}"))
+                .andExpect(status().isOk());
+        return StatementCounter.selects();
+    }
+
+    private void assertStatements(int expected, String uri) throws Exception {
+        StatementCounter.reset();
+        mockMvc.perform(get(uri).header("Authorization", "Bearer admin-secret"))
+                .andExpect(status().isOk());
+        assertEquals(expected, StatementCounter.count(), uri);
+    }
+
+    // Counts the SQL Hibernate prepares on the calling thread; MockMvc serves requests on the test thread
+    public static class StatementCounter implements StatementInspector {
+
+        private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[2]);
+
+        @Override
+        public String inspect(String sql) {
+            int[] counts = COUNTS.get();
+            counts[0]++;
+            if (sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+                counts[1]++;
+            }
+            return sql;
+        }
+
+        static void reset() {
+            COUNTS.get()[0] = 0;
+            COUNTS.get()[1] = 0;
+        }
+
+        static int count() {
+            return COUNTS.get()[0];
+        }
+
+        static int selects() {
+            return COUNTS.get()[1];
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.amyway.luckydraw.controller;
 import com.amyway.luckydraw.domain.User;
 import com.amyway.luckydraw.dto.CreateUserRequest;
 import com.amyway.luckydraw.dto.UpdateUserRequest;
+import com.amyway.luckydraw.service.DrawRateLimiter;
 import com.amyway.luckydraw.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -31,6 +32,10 @@ public class UserControllerTest {
         @MockBean
         private UserService userService;
 
+        // Picked up with DrawRateLimitAdvice by the MVC slice
+        @MockBean
+        private DrawRateLimiter drawRateLimiter;
+
         @Autowired
         private ObjectMapper objectMapper;
 
@@ -0,0 +1,82 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityConfigCacheTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @InjectMocks
+    private ActivityConfigCache cache;
+
+    @Test
+    void get_LoadsOnceUntilEvicted() {
+        stubActivity(5);
+
+        cache.get(1L);
+        cache.get(1L);
+        verify(activityRepository, times(1)).findById(1L);
+        assertEquals(1, cache.stats().hits());
+
+        cache.evict(1L);
+        cache.get(1L);
+        verify(activityRepository, times(2)).findById(1L);
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void markSoldOut_HidesPrizeFromLaterDraws() {
+        stubActivity(5);
+        cache.get(1L);
+
+        cache.markSoldOut(1L, 10L);
+
+        ActivitySnapshot snapshot = cache.get(1L).orElseThrow();
+        assertEquals(0, snapshot.newPrizes().get(0).getAvailableStock());
+    }
+
+    @Test
+    void newPrizes_ReturnsIndependentCopies() {
+        stubActivity(5);
+        ActivitySnapshot snapshot = cache.get(1L).orElseThrow();
+
+        snapshot.newPrizes().get(0).setAvailableStock(0);
+
+        assertEquals(5, snapshot.newPrizes().get(0).getAvailableStock());
+    }
+
+    @Test
+    void get_UnknownActivity() {
+        when(activityRepository.findById(2L)).thenReturn(Optional.empty());
+        assertTrue(cache.get(2L).isEmpty());
+    }
+
+    private void stubActivity(int stock) {
+        Activity activity = new Activity();
+        activity.setId(1L);
+        activity.setMaxDrawsPerUser(3);
+        Prize prize = new Prize(10L, "Gold", stock, stock, 0.5, 0);
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(activity));
+        when(prizeRepository.findByActivityId(1L)).thenReturn(List.of(prize));
+    }
+}
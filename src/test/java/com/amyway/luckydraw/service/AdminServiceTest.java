@@ -1,10 +1,16 @@
 package com.amyway.luckydraw.service;
 
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.DrawRejectionCache;
 import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
 import com.amyway.luckydraw.domain.Prize;
 import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.amyway.luckydraw.repository.DrawRecordQueryRepository;
 import com.amyway.luckydraw.repository.DrawRecordRepository;
 import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.repository.UserRepository;
 import com.amyway.luckydraw.service.impl.AdminServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,6 +40,30 @@ class AdminServiceTest {
     @Mock
     private DrawRecordRepository drawRecordRepository;
 
+    @Mock
+    private DrawRecordQueryRepository drawRecordQueryRepository;
+
+    @Mock
+    private StockReservationRouter stockReservationRouter;
+
+    @Mock
+    private ActivityConfigCache activityConfigCache;
+
+    @Mock
+    private TicketPoolService ticketPoolService;
+
+    @Mock
+    private DrawRejectionCache drawRejectionCache;
+
+    @Mock
+    private DrawRecordPartitionRouter drawRecordPartitionRouter;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StockStreamService stockStreamService;
+
     @InjectMocks
     private AdminServiceImpl adminService;
 
@@ -67,6 +97,33 @@ class AdminServiceTest {
         verify(activityRepository).save(activity);
     }
 
+    @Test
+    void createActivity_TicketPool_BuildsPoolAndRejectsSharedPrizes() {
+        Activity activity = new Activity();
+        activity.setName("Ticket Activity");
+        activity.setDrawMode(DrawMode.TICKET_POOL);
+
+        Prize prize = new Prize();
+        prize.setId(1L);
+        prize.setName("Gold");
+        prize.setProbability(1.0);
+        prize.setTotalStock(10);
+        prize.setAvailableStock(10);
+
+        when(prizeRepository.findAllById(List.of(1L))).thenReturn(List.of(prize));
+        when(activityRepository.save(any(Activity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        adminService.createActivity(activity, List.of(1L));
+        verify(ticketPoolService).create(argThat(snapshot -> snapshot.prizes().size() == 1));
+
+        // The prize now belongs to a ticket pool, so no other activity may use it
+        when(activityRepository.findByPrizesId(1L)).thenReturn(List.of(activity));
+        Activity other = new Activity();
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> adminService.createActivity(other, List.of(1L)));
+        assertTrue(exception.getMessage().contains("不可與其他活動共用"));
+    }
+
     @Test
     void createActivity_Failure_TimeGap() {
         // Arrange
@@ -158,7 +215,7 @@ class AdminServiceTest {
         updateDetails.setProbability(0.5); // same prob
 
         when(prizeRepository.findById(prizeId)).thenReturn(Optional.of(existing));
-        when(activityRepository.findByPrizesId(prizeId)).thenReturn(List.of()); // No linked activities to validate prob
+        when(activityRepository.findWithPrizesByPrizeId(prizeId)).thenReturn(List.of()); // No linked activities to validate prob
         when(prizeRepository.save(any(Prize.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // Act
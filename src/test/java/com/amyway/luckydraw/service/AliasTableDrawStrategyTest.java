@@ -0,0 +1,122 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.service.impl.AliasTableDrawStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AliasTableDrawStrategyTest {
+
+    private final AliasTableDrawStrategy strategy = new AliasTableDrawStrategy();
+
+    @Test
+    public void testProbabilityDistribution() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 0.1, 100000));
+        prizes.add(createPrize(2L, "Silver", 0.3, 100000));
+        prizes.add(createPrize(3L, "Bronze", 0.6, 100000));
+
+        Map<String, Integer> counts = draw(1L, prizes, 10000);
+
+        assertProbability(counts.get("Gold"), 10000, 0.1, 0.02);
+        assertProbability(counts.get("Silver"), 10000, 0.3, 0.02);
+        assertProbability(counts.get("Bronze"), 10000, 0.6, 0.02);
+    }
+
+    @Test
+    public void testOutOfStockMassGoesToEmptyPrize() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 0.5, 100000));
+        prizes.add(createPrize(2L, "銘謝惠顧", 0.5, 999999));
+
+        // Build and cache the table while Gold is in stock
+        draw(2L, prizes, 100);
+
+        prizes.get(0).setAvailableStock(0);
+        Map<String, Integer> counts = draw(2L, prizes, 1000);
+
+        assertNull(counts.get("Gold"));
+        assertEquals(1000, counts.get("銘謝惠顧"));
+    }
+
+    @Test
+    public void testRebuildsWhenProbabilityChanges() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 0.9, 100000));
+        prizes.add(createPrize(2L, "銘謝惠顧", 0.1, 999999));
+
+        draw(3L, prizes, 100);
+
+        // Reconfigured activity, as loaded fresh for the next request
+        List<Prize> updated = new ArrayList<>();
+        updated.add(createPrize(1L, "Gold", 0.1, 100000));
+        updated.add(createPrize(2L, "銘謝惠顧", 0.9, 999999));
+        Map<String, Integer> counts = draw(3L, updated, 10000);
+
+        assertProbability(counts.get("Gold"), 10000, 0.1, 0.02);
+    }
+
+    @Test
+    public void testRestockedPrizeIsDrawnAgain() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 0.5, 100000));
+        prizes.add(createPrize(2L, "銘謝惠顧", 0.5, 999999));
+        draw(5L, prizes, 100);
+
+        // Sold out: the table is rebuilt without Gold
+        prizes.get(0).setAvailableStock(0);
+        assertNull(draw(5L, prizes, 1000).get("Gold"));
+
+        // Restocked by an admin, as loaded fresh for the next request
+        prizes.get(0).setAvailableStock(10);
+        assertProbability(draw(5L, prizes, 10000).get("Gold"), 10000, 0.5, 0.02);
+    }
+
+    @Test
+    public void testRestockWithoutEmptyPrizeIsNotSoldOutForever() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 1.0, 0));
+        assertNull(strategy.draw(6L, prizes));
+
+        prizes.get(0).setAvailableStock(5);
+        assertEquals("Gold", strategy.draw(6L, prizes).getName());
+    }
+
+    @Test
+    public void testNoPrizeWhenNothingInStockAndNoEmptyPrize() {
+        List<Prize> prizes = new ArrayList<>();
+        prizes.add(createPrize(1L, "Gold", 1.0, 0));
+
+        assertNull(strategy.draw(4L, prizes));
+    }
+
+    private Map<String, Integer> draw(Long activityId, List<Prize> prizes, int times) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            Prize p = strategy.draw(activityId, prizes);
+            counts.merge(p.getName(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private void assertProbability(int count, int total, double expectedProb, double margin) {
+        double actualProb = (double) count / total;
+        assertTrue(Math.abs(actualProb - expectedProb) < margin,
+                "Expected " + expectedProb + " but got " + actualProb);
+    }
+
+    private Prize createPrize(Long id, String name, double prob, int stock) {
+        Prize p = new Prize();
+        p.setId(id);
+        p.setName(name);
+        p.setProbability(prob);
+        p.setAvailableStock(stock);
+        return p;
+    }
+}
@@ -0,0 +1,44 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionBulkheadTest {
+
+    @Test
+    void execute_RejectsWhenAllPermitsHeld() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(true, 1, 20);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = Thread.ofVirtual().start(() -> bulkhead.execute(() -> {
+            holding.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> bulkhead.execute(() -> "draw"));
+        assertEquals("系統繁忙，請稍後再試", e.getMessage());
+        assertEquals(1, bulkhead.stats().rejected());
+
+        release.countDown();
+        holder.join();
+        assertEquals("draw", bulkhead.execute(() -> "draw"));
+        assertEquals(0, bulkhead.stats().inUse());
+    }
+
+    @Test
+    void execute_PassesThroughWhenDisabled() {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(false, 0, 0);
+        assertEquals("draw", bulkhead.execute(() -> "draw"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.impl.DatabaseStockReservationStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.data.redis.repositories.enabled=false")
+@Transactional
+class DatabaseStockReservationStrategyTest {
+
+    @Autowired
+    private DatabaseStockReservationStrategy stockReservationStrategy;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Test
+    void reserveQuantity_AggregatedDecrementDowngradesPartially() {
+        Prize prize = new Prize();
+        prize.setName("Batch Prize");
+        prize.setTotalStock(7);
+        prize.setAvailableStock(7);
+        prize.setProbability(0.5);
+        Long prizeId = prizeRepository.save(prize).getId();
+
+        assertEquals(5, stockReservationStrategy.reserve(prizeId, 5));
+        assertEquals(2, stockReservationStrategy.reserve(prizeId, 5));
+        assertEquals(0, stockReservationStrategy.reserve(prizeId, 5));
+        assertEquals(0, prizeRepository.findAvailableStockById(prizeId));
+    }
+}
@@ -0,0 +1,79 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.domain.UserDrawCounter;
+import com.amyway.luckydraw.repository.DrawRecordRepository;
+import com.amyway.luckydraw.repository.UserDrawCounterRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.data.redis.repositories.enabled=false")
+@Transactional
+class DrawCounterServiceTest {
+
+    @Autowired
+    private DrawCounterService drawCounterService;
+
+    @Autowired
+    private UserDrawCounterRepository counterRepository;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void tryIncrement_SeedsFromExistingRecordsAndEnforcesLimit() {
+        User user = createUserWithRecords(7L, 3);
+
+        // 3 historical draws + 2 = 5 <= 5
+        assertTrue(drawCounterService.tryIncrement(user.getId(), 7L, 2, 5));
+        assertFalse(drawCounterService.tryIncrement(user.getId(), 7L, 1, 5));
+        assertEquals(5L, counterRepository.findByUserIdAndActivityId(user.getId(), 7L)
+                .orElseThrow().getDrawCount());
+    }
+
+    @Test
+    void tryIncrement_TracksGlobalCounterSeparately() {
+        User user = createUserWithRecords(8L, 2);
+
+        assertTrue(drawCounterService.tryIncrement(user.getId(), UserDrawCounter.GLOBAL, 1, 3));
+        assertFalse(drawCounterService.tryIncrement(user.getId(), UserDrawCounter.GLOBAL, 1, 3));
+        assertTrue(drawCounterService.tryIncrement(user.getId(), 8L, 1, 3));
+    }
+
+    @Test
+    void rebuild_RecomputesCountersFromDrawRecords() {
+        User user = createUserWithRecords(9L, 4);
+        drawCounterService.tryIncrement(user.getId(), 9L, 1, 100); // counter now 5, records 4
+
+        drawCounterService.rebuild();
+
+        assertEquals(4L, counterRepository.findByUserIdAndActivityId(user.getId(), 9L)
+                .orElseThrow().getDrawCount());
+        assertEquals(4L, counterRepository.findByUserIdAndActivityId(user.getId(), UserDrawCounter.GLOBAL)
+                .orElseThrow().getDrawCount());
+    }
+
+    private User createUserWithRecords(Long activityId, int records) {
+        User user = new User();
+        user.setName("counter-user");
+        userRepository.save(user);
+        for (int i = 0; i < records; i++) {
+            DrawRecord record = new DrawRecord();
+            record.setUser(user);
+            record.setActivityId(activityId);
+            record.setIsWin(false);
+            drawRecordRepository.save(record);
+        }
+        drawRecordRepository.flush();
+        return user;
+    }
+}
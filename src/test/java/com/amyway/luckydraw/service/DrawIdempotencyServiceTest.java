@@ -0,0 +1,91 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.dto.DrawRequest;
+import com.amyway.luckydraw.dto.DrawResult;
+import com.amyway.luckydraw.exception.DuplicateRequestException;
+import com.amyway.luckydraw.exception.InvalidIdempotencyKeyException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import com.amyway.luckydraw.service.impl.InMemoryIdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawIdempotencyServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DrawIdempotencyService service = new DrawIdempotencyService(
+            new InMemoryIdempotencyStore(60_000, 30_000, 3), new DrawMetrics(meterRegistry));
+
+    @Test
+    void execute_RetryReplaysOriginalResultsWithoutDrawing() {
+        AtomicInteger draws = new AtomicInteger();
+        List<DrawResult> first = service.execute(request(1L, "retry-1"), () -> draw(draws));
+        List<DrawResult> retried = service.execute(request(1L, "retry-1"), () -> draw(draws));
+
+        assertEquals(1, draws.get());
+        assertEquals(first, retried);
+        assertEquals(1.0, meterRegistry.get("luckydraw.draw.idempotent.replays").counter().count());
+
+        // Same key from another user is a different request
+        service.execute(request(2L, "retry-1"), () -> draw(draws));
+        assertEquals(2, draws.get());
+    }
+
+    @Test
+    void execute_RejectsKeyReusedForDifferentRequest() {
+        service.execute(request(1L, "k"), () -> draw(new AtomicInteger()));
+
+        DrawRequest different = request(1L, "k");
+        different.setCount(5);
+        Exception e = assertThrows(InvalidIdempotencyKeyException.class,
+                () -> service.execute(different, () -> draw(new AtomicInteger())));
+        assertEquals("冪等鍵已用於不同的抽獎請求", e.getMessage());
+
+        DrawRequest tooLong = request(1L, "k".repeat(DrawIdempotencyService.MAX_KEY_LENGTH + 1));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> service.execute(tooLong, () -> draw(new AtomicInteger())));
+    }
+
+    @Test
+    void execute_RetryDuringDrawIsRejectedAndFailedDrawCanBeRetried() {
+        AtomicInteger draws = new AtomicInteger();
+        assertThrows(DuplicateRequestException.class, () -> service.execute(request(1L, "k"),
+                () -> service.execute(request(1L, "k"), () -> draw(draws))));
+
+        assertThrows(RuntimeException.class, () -> service.execute(request(1L, "k"), () -> {
+            throw new RuntimeException("活動未啟用");
+        }));
+        service.execute(request(1L, "k"), () -> draw(draws));
+        assertEquals(1, draws.get());
+    }
+
+    @Test
+    void execute_OldestKeysAreDroppedBeyondMaxEntries() {
+        AtomicInteger draws = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            service.execute(request(1L, "k" + i), () -> draw(draws));
+        }
+
+        // k0 was evicted to make room, k3 is still remembered
+        service.execute(request(1L, "k0"), () -> draw(draws));
+        service.execute(request(1L, "k3"), () -> draw(draws));
+        assertEquals(5, draws.get());
+    }
+
+    private static DrawRequest request(Long userId, String key) {
+        DrawRequest request = new DrawRequest();
+        request.setUserId(userId);
+        request.setActivityId(100L);
+        request.setIdempotencyKey(key);
+        return request;
+    }
+
+    private static List<DrawResult> draw(AtomicInteger draws) {
+        draws.incrementAndGet();
+        return List.of(DrawResult.builder().isWin(false).message("再接再厲！").build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.exception.RateLimitedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import com.amyway.luckydraw.service.impl.InMemoryRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void check_AllowsBurstThenRejectsWithRetryAfter() {
+        // 1 per second, bursts of 3
+        DrawRateLimiter limiter = limiter(1, 3, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            limiter.check(1L, 100L);
+        }
+
+        RateLimitedException e = assertThrows(RateLimitedException.class, () -> limiter.check(1L, 100L));
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(1.0, meterRegistry.get("luckydraw.draw.rate-limited").tag("scope", "user").counter().count());
+
+        // Other users have their own bucket
+        limiter.check(2L, 100L);
+    }
+
+    @Test
+    void check_ActivityLimitAppliesAcrossUsers() {
+        DrawRateLimiter limiter = limiter(0, 0, 1, 2);
+        limiter.check(1L, 100L);
+        limiter.check(2L, 100L);
+
+        assertThrows(RateLimitedException.class, () -> limiter.check(3L, 100L));
+        limiter.check(3L, 200L);
+    }
+
+    @Test
+    void check_NeverGrantsMoreThanBurstUnderContention() throws InterruptedException {
+        // Slow enough that no permit refills during the test
+        DrawRateLimiter limiter = limiter(0.01, 20, 0, 0);
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger granted = new AtomicInteger();
+        for (int t = 0; t < threadCount; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        limiter.check(1L, 100L);
+                        granted.incrementAndGet();
+                    } catch (RateLimitedException ignored) {
+                        // expected once the burst is spent
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        assertEquals(20, granted.get());
+    }
+
+    private DrawRateLimiter limiter(double userRate, int userBurst, double activityRate, int activityBurst) {
+        return new DrawRateLimiter(new InMemoryRateLimiter(), new DrawMetrics(meterRegistry), true,
+                userRate, userBurst, activityRate, activityBurst);
+    }
+}
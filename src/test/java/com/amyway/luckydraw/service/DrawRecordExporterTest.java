@@ -0,0 +1,77 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.repository.DrawRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.data.redis.repositories.enabled=false")
+@Transactional
+class DrawRecordExporterTest {
+
+    private static final Long ACTIVITY_ID = 5151L;
+
+    @Autowired
+    private DrawRecordExporter drawRecordExporter;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    private final DrawRecordQueryRequest filter = new DrawRecordQueryRequest();
+
+    @BeforeEach
+    void setUp() {
+        save("銘謝惠顧", false, 0);
+        save("Gift \"A\", large", true, 1);
+        save("Gold", true, 2);
+        drawRecordRepository.flush();
+        filter.setActivityId(ACTIVITY_ID);
+    }
+
+    @Test
+    void export_Csv_QuotesAndOrdersOldestFirst() throws Exception {
+        String[] lines = export(DrawRecordExporter.Format.CSV).split("\r\n");
+
+        assertEquals("﻿id,user_id,activity_id,prize_id,prize_name,draw_time,is_win", lines[0]);
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].contains(",銘謝惠顧,"));
+        assertTrue(lines[2].contains(",\"Gift \"\"A\"\", large\","));
+        assertTrue(lines[3].endsWith(",true"));
+    }
+
+    @Test
+    void export_Ndjson_OneObjectPerLine() throws Exception {
+        filter.setIsWin(true);
+
+        String[] lines = export(DrawRecordExporter.Format.NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"prizeName\":\"Gift \\\"A\\\", large\""));
+        assertTrue(lines[1].contains("\"isWin\":true"));
+    }
+
+    private String export(DrawRecordExporter.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        drawRecordExporter.export(filter, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void save(String prizeName, boolean win, int minutes) {
+        DrawRecord record = new DrawRecord();
+        record.setActivityId(ACTIVITY_ID);
+        record.setPrizeName(prizeName);
+        record.setIsWin(win);
+        record.setDrawTime(LocalDateTime.of(2024, 6, 1, 10, 0).plusMinutes(minutes));
+        drawRecordRepository.save(record);
+    }
+}
@@ -0,0 +1,88 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordSlice;
+import com.amyway.luckydraw.dto.DrawRecordView;
+import com.amyway.luckydraw.repository.DrawRecordRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.data.redis.repositories.enabled=false")
+@Transactional
+class DrawRecordKeysetQueryTest {
+
+    private static final Long ACTIVITY_ID = 4242L;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void getDrawRecordsAfter_WalksAllPagesNewestFirst() {
+        User user = new User();
+        user.setName("keyset-user");
+        userRepository.save(user);
+
+        // Two records share a draw time so the id tie-breaker matters
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 10, 0);
+        int[] minuteOffsets = { 0, 1, 1, 2, 3 };
+        for (int offset : minuteOffsets) {
+            DrawRecord record = new DrawRecord();
+            record.setUser(user);
+            record.setActivityId(ACTIVITY_ID);
+            record.setPrizeName("Gold");
+            record.setIsWin(true);
+            record.setDrawTime(base.plusMinutes(offset));
+            drawRecordRepository.save(record);
+        }
+        drawRecordRepository.flush();
+
+        DrawRecordQueryRequest request = new DrawRecordQueryRequest();
+        request.setActivityId(ACTIVITY_ID);
+        request.setUserName("keyset");
+        request.setSize(2);
+
+        List<DrawRecordView> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DrawRecordSlice slice = adminService.getDrawRecordsAfter(request, cursor);
+            seen.addAll(slice.getRecords());
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(5, seen.stream().map(DrawRecordView::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            DrawRecordView previous = seen.get(i - 1);
+            DrawRecordView current = seen.get(i);
+            assertTrue(previous.getDrawTime().isAfter(current.getDrawTime())
+                    || (previous.getDrawTime().equals(current.getDrawTime()) && previous.getId() > current.getId()));
+        }
+    }
+
+    @Test
+    void getDrawRecordsAfter_RejectsMalformedCursor() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> adminService.getDrawRecordsAfter(new DrawRecordQueryRequest(), "not-a-cursor"));
+        assertEquals("無效的分頁游標", e.getMessage());
+    }
+}
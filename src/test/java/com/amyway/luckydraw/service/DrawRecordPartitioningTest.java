@@ -0,0 +1,209 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.domain.UserDrawCounter;
+import com.amyway.luckydraw.dto.DrawRecordQueryRequest;
+import com.amyway.luckydraw.dto.DrawRecordView;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.amyway.luckydraw.repository.DrawRecordQueryRepository;
+import com.amyway.luckydraw.repository.UserDrawCounterRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.data.redis.repositories.enabled=false",
+        "luckydraw.draw-record.partitioning.enabled=true",
+        "luckydraw.warmup.enabled=false"
+})
+class DrawRecordPartitioningTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("luckydraw.draw-record.archive.dir", () -> archiveDir.toString());
+    }
+
+    @Autowired
+    private DrawRecordWriter drawRecordWriter;
+
+    @Autowired
+    private DrawRecordQueryRepository drawRecordQueryRepository;
+
+    @Autowired
+    private DrawRecordPartitionRouter partitionRouter;
+
+    @Autowired
+    private DrawRecordArchiver drawRecordArchiver;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DrawCounterService drawCounterService;
+
+    @Autowired
+    private UserDrawCounterRepository counterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void recordsAreRoutedPrunedAndArchivedPerActivityAndMonth() throws Exception {
+        User user = new User();
+        user.setName("partition-user");
+        userRepository.save(user);
+        Long ended = activity(LocalDateTime.now().minusDays(1));
+        Long running = activity(LocalDateTime.now().plusDays(1));
+        LocalDateTime may = LocalDateTime.of(2024, 5, 20, 12, 0);
+        LocalDateTime june = LocalDateTime.of(2024, 6, 10, 12, 0);
+
+        List<DrawRecord> records = new ArrayList<>();
+        for (Long activityId : List.of(ended, running)) {
+            for (LocalDateTime month : List.of(may, june)) {
+                for (int i = 0; i < 3; i++) {
+                    records.add(record(user, activityId, month.plusMinutes(i)));
+                }
+            }
+        }
+        drawRecordWriter.write(records);
+
+        assertEquals(List.of("draw_record", "draw_record_" + ended + "_202405", "draw_record_" + ended + "_202406"),
+                partitionRouter.tablesFor(ended, null, null));
+        // A June-only filter never visits the May table
+        assertEquals(List.of("draw_record", "draw_record_" + ended + "_202406"),
+                partitionRouter.tablesFor(ended, june.minusDays(1), june.plusDays(1)));
+
+        DrawRecordQueryRequest filter = new DrawRecordQueryRequest();
+        filter.setActivityId(ended);
+        assertEquals(6, drawRecordQueryRepository.count(filter));
+        List<DrawRecordView> newest = drawRecordQueryRepository.findPage(filter, null, null, 4);
+        assertEquals(4, newest.size());
+        assertEquals(june.plusMinutes(2), newest.get(0).getDrawTime());
+        assertEquals(may.plusMinutes(2), newest.get(3).getDrawTime());
+
+        filter.setStartTime(june.atOffset(ZoneOffset.UTC));
+        Page<DrawRecord> page = adminService.getDrawRecords(filter, PageRequest.of(1, 2));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals("partition-user", page.getContent().get(0).getUser().getName());
+
+        DrawRecordArchiver.Result result = drawRecordArchiver.archive(ended);
+
+        assertEquals(6, result.records());
+        assertEquals(2, result.files().size());
+        assertEquals(List.of("draw_record"), partitionRouter.tablesFor(ended, null, null));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE LOWER(TABLE_NAME) LIKE ?", Integer.class, "draw_record_" + ended + "\\_%"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(Path.of(result.files().get(0)))), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertEquals(DrawRecordExporter.CSV_HEADER, lines.get(0));
+            assertEquals(4, lines.size());
+        }
+        filter.setStartTime(null);
+        assertEquals(0, drawRecordQueryRepository.count(filter));
+        filter.setActivityId(running);
+        assertEquals(6, drawRecordQueryRepository.count(filter));
+
+        assertThrows(RuntimeException.class, () -> drawRecordArchiver.archive(running));
+    }
+
+    @Test
+    void recordsFromBeforePartitioningStayVisibleAndCounted() {
+        User user = new User();
+        user.setName("legacy-user");
+        Long userId = userRepository.save(user).getId();
+        Long activityId = activity(LocalDateTime.now().minusDays(1));
+        LocalDateTime drawTime = LocalDateTime.of(2024, 5, 20, 12, 0);
+        // Written to draw_record while partitioning was still off
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("INSERT INTO draw_record (user_id, activity_id, prize_name, draw_time, is_win) "
+                    + "VALUES (?, ?, 'Gold', ?, TRUE)", userId, activityId, drawTime.minusDays(i));
+        }
+        drawRecordWriter.write(List.of(record(user, activityId, drawTime.plusMinutes(1))));
+
+        DrawRecordQueryRequest filter = new DrawRecordQueryRequest();
+        filter.setActivityId(activityId);
+        assertEquals(3, drawRecordQueryRepository.count(filter));
+        List<DrawRecordView> newest = drawRecordQueryRepository.findPage(filter, null, null, 10);
+        assertEquals(List.of(drawTime.plusMinutes(1), drawTime, drawTime.minusDays(1)),
+                newest.stream().map(DrawRecordView::getDrawTime).toList());
+        assertEquals(3, adminService.getDrawRecords(filter, PageRequest.of(0, 10)).getContent().size());
+
+        // Seeding counts the legacy records too, so the quota is not handed out again
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(drawCounterService.tryIncrement(userId, activityId, 1, 4));
+            assertFalse(drawCounterService.tryIncrement(userId, activityId, 1, 4));
+        });
+        drawCounterService.rebuild();
+        assertEquals(3, counterRepository.findByUserIdAndActivityId(userId, activityId).orElseThrow().getDrawCount());
+
+        DrawRecordArchiver.Result result = drawRecordArchiver.archive(activityId);
+        assertEquals(3, result.records());
+        assertEquals(2, result.files().size());
+        assertEquals(0, drawRecordQueryRepository.count(filter));
+
+        // Archived draws keep counting against the quota, whether rebuilt or seeded afresh
+        drawCounterService.rebuild();
+        assertEquals(3, counterRepository.findByUserIdAndActivityId(userId, activityId).orElseThrow().getDrawCount());
+        counterRepository.deleteAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertFalse(drawCounterService.tryIncrement(userId, activityId, 1, 3));
+            assertFalse(drawCounterService.tryIncrement(userId, UserDrawCounter.GLOBAL, 1, 3));
+        });
+    }
+
+    private Long activity(LocalDateTime endTime) {
+        Activity activity = new Activity();
+        activity.setName("partitioned");
+        activity.setStartTime(LocalDateTime.now().minusDays(30));
+        activity.setEndTime(endTime);
+        return activityRepository.save(activity).getId();
+    }
+
+    private static DrawRecord record(User user, Long activityId, LocalDateTime drawTime) {
+        DrawRecord record = new DrawRecord();
+        record.setUser(user);
+        record.setActivityId(activityId);
+        record.setPrizeName("Gold");
+        record.setIsWin(true);
+        record.setDrawTime(drawTime);
+        return record;
+    }
+}
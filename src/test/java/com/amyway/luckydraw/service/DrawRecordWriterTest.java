@@ -0,0 +1,151 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.metrics.DrawRecordWriterHealthIndicator;
+import com.amyway.luckydraw.repository.DrawRecordPartitionRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DrawRecordWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DrawRecordPartitionRouter partitionRouter;
+
+    @TempDir
+    Path spillDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void write_BatchesQueuedRecordsAndFlushesOnStop() throws InterruptedException {
+        DrawRecordWriter writer = writer(100, 50);
+        writer.start();
+
+        writer.write(records(10));
+        writer.stop();
+
+        DrawRecordWriter.Stats stats = writer.stats();
+        assertEquals(10, stats.flushedRecords());
+        assertEquals(stats.flushes(), meterRegistry.get("luckydraw.draw-record.flush").timer().count());
+        assertEquals(0, stats.queueDepth());
+        assertEquals(0, stats.synchronousWrites());
+    }
+
+    @Test
+    void write_FallsBackToCallerWhenQueueStaysFull() {
+        // Writer thread never started, so nothing drains the queue
+        DrawRecordWriter writer = writer(2, 1);
+
+        writer.write(records(5));
+
+        DrawRecordWriter.Stats stats = writer.stats();
+        assertEquals(2, stats.queueDepth());
+        assertEquals(3, stats.synchronousWrites());
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<DrawRecord> l) -> l.size() == 3), eq(50),
+                anySetter());
+    }
+
+    @Test
+    void write_SpillsFailedBatchesAndInsertsThemLater() throws Exception {
+        doThrow(new RuntimeException("db down")).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyList(), anyInt(), anySetter());
+        DrawRecordWriter writer = writer(100, 50);
+        DrawRecordWriterHealthIndicator health = new DrawRecordWriterHealthIndicator(writer);
+        writer.start();
+
+        writer.write(records(4));
+        writer.stop();
+
+        assertEquals(1, writer.stats().failedFlushes());
+        assertEquals(4, writer.stats().spilledRecords());
+        assertEquals(0, writer.stats().droppedRecords());
+        assertEquals(Status.DOWN, health.health().getStatus());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(1, files.count());
+        }
+
+        // Still failing: the batch stays on disk
+        writer.replaySpilled();
+        assertEquals(4, writer.stats().spilledRecords());
+
+        doReturn(new int[0][]).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyList(), anyInt(), anySetter());
+        writer.replaySpilled();
+
+        assertEquals(0, writer.stats().spilledRecords());
+        assertEquals(4, writer.stats().flushedRecords());
+        assertEquals(Status.UP, health.health().getStatus());
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(),
+                argThat((List<DrawRecord> l) -> l.size() == 4 && l.get(0).getUser().getId() == 7L), eq(50),
+                anySetter());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void start_PicksUpBatchesSpilledByAPreviousRun() throws Exception {
+        doThrow(new RuntimeException("db down")).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyList(), anyInt(), anySetter());
+        DrawRecordWriter crashed = writer(100, 50);
+        crashed.start();
+        crashed.write(records(3));
+        crashed.stop();
+
+        DrawRecordWriter restarted = writer(100, 50);
+        restarted.start();
+        try {
+            assertEquals(3, restarted.stats().spilledRecords());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    private DrawRecordWriter writer(int capacity, long offerTimeoutMillis) {
+        return new DrawRecordWriter(jdbcTemplate, partitionRouter, new ObjectMapper(), meterRegistry, true,
+                capacity, 50, offerTimeoutMillis, spillDir.toString(), false);
+    }
+
+    private static ParameterizedPreparedStatementSetter<DrawRecord> anySetter() {
+        return any();
+    }
+
+    private List<DrawRecord> records(int count) {
+        User user = new User();
+        user.setId(7L);
+        List<DrawRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DrawRecord record = new DrawRecord();
+            record.setUser(user);
+            record.setActivityId(1L);
+            record.setPrizeId(1L);
+            record.setPrizeName("Gold");
+            record.setIsWin(true);
+            records.add(record);
+        }
+        return records;
+    }
+}
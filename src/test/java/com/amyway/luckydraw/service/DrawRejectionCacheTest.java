@@ -0,0 +1,57 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.DrawRejectionCache;
+import com.amyway.luckydraw.exception.DrawErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawRejectionCacheTest {
+
+    private final DrawRejectionCache cache = new DrawRejectionCache(30_000, 1_000);
+
+    @Test
+    void find_QuotaRejectionCoversLargerCountsOnly() {
+        cache.rejectGlobalQuota(1L, 10, 3);
+
+        assertNull(cache.find(1L, 100L, 2));
+        assertEquals(DrawErrorCode.GLOBAL_QUOTA_EXCEEDED, cache.find(1L, 100L, 3).code());
+        assertEquals(10, cache.find(1L, 200L, 5).limit());
+        assertNull(cache.find(2L, 100L, 3));
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void invalidateUser_ForgetsGlobalAndPerActivityRejections() {
+        cache.rejectGlobalQuota(1L, 10, 1);
+        cache.rejectActivityQuota(1L, 100L, 5, 1);
+        cache.rejectActivityQuota(2L, 100L, 5, 1);
+
+        cache.invalidateUser(1L);
+
+        assertNull(cache.find(1L, 100L, 1));
+        assertEquals(DrawErrorCode.ACTIVITY_QUOTA_EXCEEDED, cache.find(2L, 100L, 1).code());
+    }
+
+    @Test
+    void rejectInactive_NotStartedActivityIsForgottenWhenItStarts() {
+        cache.rejectInactive(100L, LocalDateTime.now().minusDays(1));
+        cache.rejectInactive(200L, LocalDateTime.now().minusNanos(1));
+        cache.rejectInactive(300L, LocalDateTime.now().plusSeconds(60));
+
+        assertEquals(DrawErrorCode.ACTIVITY_INACTIVE, cache.find(1L, 100L, 1).code());
+        assertNotNull(cache.find(1L, 300L, 1));
+        cache.invalidateActivity(100L);
+        assertNull(cache.find(1L, 100L, 1));
+    }
+
+    @Test
+    void find_DisabledWithZeroTtl() {
+        DrawRejectionCache disabled = new DrawRejectionCache(0, 1_000);
+        disabled.rejectGlobalQuota(1L, 10, 1);
+
+        assertNull(disabled.find(1L, 100L, 1));
+    }
+}
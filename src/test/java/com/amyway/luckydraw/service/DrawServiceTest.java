@@ -1,21 +1,29 @@
 package com.amyway.luckydraw.service;
 
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.cache.DrawRejectionCache;
 import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
 import com.amyway.luckydraw.domain.Prize;
 import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.domain.UserDrawCounter;
 import com.amyway.luckydraw.dto.DrawResult;
-import com.amyway.luckydraw.repository.ActivityRepository;
-import com.amyway.luckydraw.repository.DrawRecordRepository;
+import com.amyway.luckydraw.exception.DrawErrorCode;
+import com.amyway.luckydraw.exception.DrawRejectedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
 import com.amyway.luckydraw.repository.PrizeRepository;
 import com.amyway.luckydraw.repository.UserRepository;
-import jakarta.persistence.EntityManager;
+import com.amyway.luckydraw.service.impl.OptimisticStockReservationStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,17 +35,31 @@ import static org.mockito.Mockito.*;
 class DrawServiceTest {
 
     @Mock
-    private ActivityRepository activityRepository;
+    private ActivityConfigCache activityConfigCache;
     @Mock
-    private PrizeRepository prizeRepository;
+    private UserRepository userRepository;
     @Mock
-    private DrawRecordRepository drawRecordRepository;
+    private DrawStrategy drawStrategy;
     @Mock
-    private UserRepository userRepository;
+    private StockReservationRouter stockReservationRouter;
     @Mock
-    private EntityManager entityManager;
+    private StockReservationStrategy stockReservationStrategy;
     @Mock
-    private DrawStrategy drawStrategy;
+    private DrawRecordWriter drawRecordWriter;
+    @Mock
+    private DrawCounterService drawCounterService;
+    @Mock
+    private TicketPoolService ticketPoolService;
+    @Mock
+    private DrawStatsAggregator drawStatsAggregator;
+    @Mock
+    private StockStreamService stockStreamService;
+    @Spy
+    private DrawRejectionCache drawRejectionCache = new DrawRejectionCache(30_000, 1_000);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private DrawMetrics drawMetrics = new DrawMetrics(meterRegistry);
 
     @InjectMocks
     private DrawService drawService;
@@ -62,18 +84,17 @@ class DrawServiceTest {
         prize.setAvailableStock(5);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(drawRecordRepository.countByUser_Id(userId)).thenReturn(0L); // global count
+        when(drawCounterService.tryIncrement(userId, UserDrawCounter.GLOBAL, 1, 10)).thenReturn(true); // global quota
 
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
-        when(drawRecordRepository.countByUser_IdAndActivityId(userId, activityId)).thenReturn(0L); // activity count
-
-        when(prizeRepository.findByActivityId(activityId)).thenReturn(new ArrayList<>(List.of(prize)));
+        when(activityConfigCache.get(activityId)).thenReturn(Optional.of(ActivitySnapshot.of(activity, List.of(prize))));
+        when(drawCounterService.tryIncrement(userId, activityId, 1, 5)).thenReturn(true); // activity quota
 
         // Mock Strategy
-        when(drawStrategy.draw(anyList())).thenReturn(prize);
+        when(drawStrategy.draw(anyLong(), anyList())).thenReturn(prize);
 
-        // Mock Decrement Success
-        when(prizeRepository.decrementStock(prize.getId())).thenReturn(1);
+        // Mock Reservation Success
+        when(stockReservationRouter.strategy(null)).thenReturn(stockReservationStrategy);
+        when(stockReservationStrategy.reserve(prize.getId(), 1)).thenReturn(1);
 
         // Act
         List<DrawResult> results = drawService.draw(userId, activityId, 1);
@@ -84,13 +105,17 @@ class DrawServiceTest {
         DrawResult result = results.get(0);
         assertTrue(result.isWin());
         assertEquals("Gold", result.getPrize().getName());
-        verify(drawRecordRepository).save(any());
+        verify(drawRecordWriter).write(argThat(records -> records.size() == 1));
+        assertEquals(1.0, meterRegistry.get("luckydraw.draw.wins").tag("prize", "Gold").counter().count());
     }
 
     @Test
     void draw_Failure_UserNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () -> drawService.draw(1L, 100L, 1));
+        DrawRejectedException e = assertThrows(DrawRejectedException.class, () -> drawService.draw(1L, 100L, 1));
+        assertEquals(DrawErrorCode.USER_NOT_FOUND, e.getCode());
+        // Rejections are stackless
+        assertEquals(0, e.getStackTrace().length);
     }
 
     @Test
@@ -98,11 +123,15 @@ class DrawServiceTest {
         User user = new User();
         user.setDrawQuota(10);
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(drawCounterService.tryIncrement(1L, UserDrawCounter.GLOBAL, 1, 10)).thenReturn(true);
 
         Activity activity = new Activity();
-        when(activityRepository.findById(100L)).thenReturn(Optional.of(activity));
+        activity.setEndTime(java.time.LocalDateTime.now().minusDays(1));
+        when(activityConfigCache.get(100L)).thenReturn(Optional.of(ActivitySnapshot.of(activity, List.of())));
 
-        assertThrows(RuntimeException.class, () -> drawService.draw(1L, 100L, 1));
+        DrawRejectedException e = assertThrows(DrawRejectedException.class, () -> drawService.draw(1L, 100L, 1));
+        assertEquals("活動未啟用", e.getMessage());
+        assertEquals(DrawErrorCode.ACTIVITY_INACTIVE, e.getCode());
     }
 
     @Test
@@ -110,10 +139,19 @@ class DrawServiceTest {
         User user = new User();
         user.setDrawQuota(1);
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(drawRecordRepository.countByUser_Id(1L)).thenReturn(1L);
+        when(drawCounterService.tryIncrement(1L, UserDrawCounter.GLOBAL, 1, 1)).thenReturn(false);
 
-        Exception e = assertThrows(RuntimeException.class, () -> drawService.draw(1L, 100L, 1));
+        DrawRejectedException e = assertThrows(DrawRejectedException.class, () -> drawService.draw(1L, 100L, 1));
         assertTrue(e.getMessage().contains("全域抽獎配額上限"));
+        assertEquals(DrawErrorCode.GLOBAL_QUOTA_EXCEEDED, e.getCode());
+        assertEquals(1.0, meterRegistry.get("luckydraw.draw.quota.rejections").tag("scope", "global").counter().count());
+
+        // The retry is answered from the rejection cache without touching the database
+        e = assertThrows(DrawRejectedException.class, () -> drawService.draw(1L, 100L, 3));
+        assertTrue(e.getMessage().contains("無法再抽 3 次"));
+        verify(userRepository, times(1)).findById(1L);
+        verify(drawCounterService, times(1)).tryIncrement(anyLong(), anyLong(), anyInt(), anyLong());
+        assertEquals(2.0, meterRegistry.get("luckydraw.draw.quota.rejections").tag("scope", "global").counter().count());
     }
 
     @Test
@@ -134,11 +172,13 @@ class DrawServiceTest {
         empty.setName("銘謝惠顧");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
-        when(prizeRepository.findByActivityId(activityId)).thenReturn(new ArrayList<>(List.of(gold, empty)));
+        when(drawCounterService.tryIncrement(eq(userId), anyLong(), eq(1), eq(10L))).thenReturn(true);
+        when(activityConfigCache.get(activityId)).thenReturn(Optional.of(ActivitySnapshot.of(activity, List.of(gold, empty))));
 
-        when(drawStrategy.draw(anyList())).thenReturn(gold); // Strategy picks Gold
-        when(prizeRepository.decrementStock(gold.getId())).thenReturn(0); // DB says NO STOCK (Concurrent)
+        when(drawStrategy.draw(anyLong(), anyList())).thenReturn(gold); // Strategy picks Gold
+        when(stockReservationRouter.strategy(null)).thenReturn(stockReservationStrategy);
+        when(stockReservationStrategy.reserve(gold.getId(), 1)).thenReturn(0); // NO STOCK (Concurrent)
+        when(stockReservationStrategy.isSoldOut(gold.getId())).thenReturn(true);
 
         // Act
         List<DrawResult> results = drawService.draw(userId, activityId, 1);
@@ -148,5 +188,100 @@ class DrawServiceTest {
         assertEquals(1, results.size());
         assertFalse(results.get(0).isWin());
         assertEquals("銘謝惠顧", results.get(0).getPrize().getName());
+        verify(activityConfigCache).markSoldOut(activityId, gold.getId());
+    }
+
+    @Test
+    void draw_Batch_AggregatesReservationAndDowngradesShortfall() {
+        Long userId = 1L;
+        Long activityId = 100L;
+        User user = new User();
+        user.setDrawQuota(10);
+        Activity activity = new Activity();
+        activity.setMaxDrawsPerUser(10);
+
+        Prize gold = new Prize(50L, "Gold", 10, 10, 0.5, 0);
+        Prize empty = new Prize(99L, "銘謝惠顧", 0, 0, 0.5, 0);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(drawCounterService.tryIncrement(eq(userId), anyLong(), eq(10), eq(10L))).thenReturn(true);
+        when(activityConfigCache.get(activityId)).thenReturn(Optional.of(ActivitySnapshot.of(activity, List.of(gold, empty))));
+        when(drawStrategy.draw(anyLong(), anyList()))
+                .thenAnswer(inv -> inv.<List<Prize>>getArgument(1).get(0)); // Gold every time
+        when(stockReservationRouter.strategy(null)).thenReturn(stockReservationStrategy);
+        when(stockReservationStrategy.reserve(50L, 10)).thenReturn(7); // Only 7 left
+        when(stockReservationStrategy.isSoldOut(50L)).thenReturn(true);
+
+        List<DrawResult> results = drawService.draw(userId, activityId, 10);
+
+        assertEquals(7, results.stream().filter(DrawResult::isWin).count());
+        assertEquals("銘謝惠顧", results.get(9).getPrize().getName());
+        verify(stockReservationStrategy, times(1)).reserve(50L, 10);
+        verify(activityConfigCache).markSoldOut(activityId, 50L);
+        assertEquals(3.0, meterRegistry.get("luckydraw.draw.stock.fallbacks").counter().count());
+        verify(drawRecordWriter).write(argThat(records -> records.size() == 10));
+    }
+
+    @Test
+    void draw_OptimisticConflicts_FallBackWithoutMarkingPrizeSoldOut() {
+        Long userId = 1L;
+        Long activityId = 100L;
+        User user = new User();
+        user.setDrawQuota(10);
+        Activity activity = new Activity();
+        activity.setMaxDrawsPerUser(10);
+        Prize gold = new Prize(50L, "Gold", 10, 10, 0.5, 0);
+        Prize empty = new Prize(99L, "銘謝惠顧", 0, 0, 0.5, 0);
+
+        PrizeRepository prizeRepository = mock(PrizeRepository.class);
+        when(prizeRepository.findVersionedStockById(50L))
+                .thenReturn(Optional.of(new PrizeRepository.VersionedStock(10, 0)));
+        when(prizeRepository.findAvailableStockById(50L)).thenReturn(10);
+        // Every attempt of the first draw loses the version race, the second draw wins it
+        when(prizeRepository.decrementStockIfVersion(50L, 1, 0)).thenReturn(0, 0, 0, 1);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(drawCounterService.tryIncrement(eq(userId), anyLong(), eq(1), eq(10L))).thenReturn(true);
+        when(activityConfigCache.get(activityId)).thenReturn(Optional.of(ActivitySnapshot.of(activity, List.of(gold, empty))));
+        when(drawStrategy.draw(anyLong(), anyList())).thenReturn(gold);
+        when(stockReservationRouter.strategy(null))
+                .thenReturn(new OptimisticStockReservationStrategy(prizeRepository, 3, 0, 0));
+
+        assertFalse(drawService.draw(userId, activityId, 1).get(0).isWin());
+        verify(activityConfigCache, never()).markSoldOut(anyLong(), anyLong());
+        assertEquals(1.0, meterRegistry.get("luckydraw.draw.stock.fallbacks").counter().count());
+
+        // Still on offer, so the next draw can win it
+        assertTrue(drawService.draw(userId, activityId, 1).get(0).isWin());
+    }
+
+    @Test
+    void draw_TicketPool_TakesPoolOutcomesWithoutReservingStock() {
+        Long userId = 1L;
+        Long activityId = 100L;
+        User user = new User();
+        user.setDrawQuota(10);
+        Activity activity = new Activity();
+        activity.setId(activityId);
+        activity.setMaxDrawsPerUser(10);
+        activity.setDrawMode(DrawMode.TICKET_POOL);
+
+        Prize gold = new Prize(50L, "Gold", 10, 10, 0.1, 0);
+        Prize empty = new Prize(99L, "銘謝惠顧", 999999, 999999, 0.9, 0);
+        ActivitySnapshot snapshot = ActivitySnapshot.of(activity, List.of(gold, empty));
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(drawCounterService.tryIncrement(eq(userId), anyLong(), eq(3), eq(10L))).thenReturn(true);
+        when(activityConfigCache.get(activityId)).thenReturn(Optional.of(snapshot));
+        // Gold, 銘謝惠顧, then past the end of the pool
+        when(ticketPoolService.draw(snapshot, 3)).thenReturn(Arrays.asList(50L, 99L, null));
+
+        List<DrawResult> results = drawService.draw(userId, activityId, 3);
+
+        assertTrue(results.get(0).isWin());
+        assertEquals("Gold", results.get(0).getPrize().getName());
+        assertFalse(results.get(1).isWin());
+        assertEquals("銘謝惠顧", results.get(2).getPrize().getName());
+        verifyNoInteractions(drawStrategy, stockReservationRouter);
+        verify(drawRecordWriter).write(argThat(records -> records.size() == 3));
     }
 }
@@ -0,0 +1,82 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.DrawRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawStatsAggregatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void record_CountsDrawsWinsPerPrizeAndUsers() {
+        DrawStatsAggregator aggregator = new DrawStatsAggregator(new ObjectMapper(), "");
+        for (long userId = 1; userId <= 10_000; userId++) {
+            aggregator.record(100L, userId, List.of(record(1L, "Gold", true), record(9L, "銘謝惠顧", false)));
+        }
+        aggregator.record(100L, 1L, List.of(record(2L, "Silver", true)));
+
+        DrawStatsAggregator.Stats stats = aggregator.stats(100L);
+
+        assertEquals(20_001, stats.draws());
+        assertEquals(10_001, stats.wins());
+        assertEquals(List.of(10_000L, 1L), stats.prizes().stream()
+                .sorted((a, b) -> a.prizeId().compareTo(b.prizeId()))
+                .map(DrawStatsAggregator.PrizeWins::wins)
+                .toList());
+        // HyperLogLog estimate, standard error about 1.6%
+        assertEquals(10_000, stats.uniqueUsers(), 500);
+        assertEquals(20_001, stats.perMinute().stream().mapToLong(DrawStatsAggregator.MinuteDraws::draws).sum());
+        assertEquals(0, aggregator.stats(200L).draws());
+    }
+
+    @Test
+    void record_IgnoresRolledBackDraws() {
+        DrawStatsAggregator aggregator = new DrawStatsAggregator(new ObjectMapper(), "");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aggregator.record(100L, 1L, List.of(record(1L, "Gold", true)));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, aggregator.stats(100L).draws());
+    }
+
+    @Test
+    void snapshot_SurvivesRestart() {
+        String file = dir.resolve("draw-stats.json").toString();
+        DrawStatsAggregator aggregator = new DrawStatsAggregator(new ObjectMapper(), file);
+        for (long userId = 1; userId <= 50; userId++) {
+            aggregator.record(100L, userId, List.of(record(1L, "Gold", userId % 2 == 0)));
+        }
+        aggregator.snapshot();
+
+        DrawStatsAggregator restarted = new DrawStatsAggregator(new ObjectMapper(), file);
+        restarted.load();
+
+        assertEquals(aggregator.stats(100L), restarted.stats(100L));
+        assertEquals(50, restarted.stats(100L).uniqueUsers(), 2);
+    }
+
+    private static DrawRecord record(Long prizeId, String prizeName, boolean win) {
+        DrawRecord record = new DrawRecord();
+        record.setActivityId(100L);
+        record.setPrizeId(prizeId);
+        record.setPrizeName(prizeName);
+        record.setIsWin(win);
+        return record;
+    }
+}
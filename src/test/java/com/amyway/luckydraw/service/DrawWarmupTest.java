@@ -0,0 +1,100 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.ActivityConfigCache;
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.exception.DrawErrorCode;
+import com.amyway.luckydraw.exception.DrawRejectedException;
+import com.amyway.luckydraw.metrics.DrawMetrics;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DrawWarmupTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ActivityConfigCache activityConfigCache;
+    @Mock
+    private DrawStrategy drawStrategy;
+    @Mock
+    private TicketPoolService ticketPoolService;
+    @Mock
+    private DrawService drawService;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final DrawMetrics drawMetrics = new DrawMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void run_DrawsInRolledBackTransactionsUpToTheLimit() throws Exception {
+        Activity activity = new Activity();
+        activity.setId(100L);
+        Prize prize = new Prize(1L, "Gold", 10, 10, 1.0, 0);
+        ActivitySnapshot snapshot = ActivitySnapshot.of(activity, List.of(prize));
+        when(activityRepository.findActive(any())).thenReturn(List.of(activity));
+        when(activityConfigCache.get(100L)).thenReturn(Optional.of(snapshot));
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        List<SimpleTransactionStatus> transactions = new ArrayList<>();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            transactions.add(status);
+            return status;
+        });
+        User user = new User();
+        user.setId(7L);
+        when(userRepository.save(any(User.class))).thenReturn(user);
+        // A rejection is part of the warm-up, not a failure
+        when(drawService.draw(7L, 100L, 1))
+                .thenThrow(new DrawRejectedException(DrawErrorCode.SOLD_OUT, "活動獎品已送完：無此可用獎品"))
+                .thenReturn(List.of());
+
+        warmup(30_000, 5).run(null);
+
+        verify(drawStrategy).draw(eq(100L), anyList());
+        verify(connection, times(3)).close();
+        verify(drawService, times(5)).draw(7L, 100L, 1);
+        assertEquals(5, transactions.size());
+        assertTrue(transactions.stream().allMatch(SimpleTransactionStatus::isRollbackOnly));
+    }
+
+    @Test
+    void run_StopsAtTheTimeBudget() {
+        warmup(0, 5).run(null);
+
+        verifyNoInteractions(activityConfigCache, dataSource, drawService);
+    }
+
+    private DrawWarmup warmup(long budgetMillis, int draws) {
+        return new DrawWarmup(activityRepository, userRepository, activityConfigCache, drawStrategy,
+                ticketPoolService, drawService, drawMetrics, dataSource, transactionManager, budgetMillis, draws, 3);
+    }
+}
@@ -0,0 +1,135 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.impl.RedisStockReservationStrategy;
+import com.amyway.luckydraw.support.InMemoryStockCounterStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisStockReservationStrategyTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    private InMemoryStockCounterStore store;
+
+    private RedisStockReservationStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStockCounterStore();
+        strategy = new RedisStockReservationStrategy(prizeRepository, store);
+    }
+
+    @Test
+    void reserve_SeedsFromDatabaseAndNeverOversells() throws InterruptedException {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(prize(1L, 10)));
+
+        int threadCount = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger wins = new AtomicInteger();
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(() -> {
+                if (strategy.reserve(1L)) {
+                    wins.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        assertEquals(10, wins.get());
+        assertEquals(0, store.get(1L));
+        assertEquals(10, store.getPending(1L));
+    }
+
+    @Test
+    void flushPending_WritesDecrementsBack() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(prize(1L, 5)));
+        strategy.reserve(1L);
+        strategy.reserve(1L);
+
+        strategy.flushPending();
+
+        verify(prizeRepository).decrementStockBy(1L, 2);
+        assertEquals(0, store.getPending(1L));
+    }
+
+    @Test
+    void flushPending_KeepsDecrementsWhenWriteBackFails() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(prize(1L, 5)));
+        when(prizeRepository.decrementStockBy(1L, 1)).thenThrow(new RuntimeException("db down"));
+        strategy.reserve(1L);
+
+        strategy.flushPending();
+
+        assertEquals(1, store.getPending(1L));
+    }
+
+    @Test
+    void reconcile_ReplaysPendingAndReseedsRedisFromDatabase() {
+        store.set(2L, 3); // restocked in the table while Redis held a lower count
+        store.set(3L, 9); // table edited while the app was down
+        store.set(4L, 6);
+        store.addPending(4L, 2); // reserved, write-back not done yet
+        when(prizeRepository.findAll()).thenReturn(List.of(prize(1L, 7), prize(2L, 5), prize(3L, 4), prize(4L, 8)));
+
+        strategy.reconcile();
+
+        assertEquals(7, store.get(1L));
+        assertEquals(5, store.get(2L));
+        assertEquals(4, store.get(3L));
+        // Only the ledger is written back; a count mismatch never decrements the table
+        verify(prizeRepository).decrementStockBy(4L, 2);
+        verify(prizeRepository, never()).decrementStockBy(eq(2L), anyInt());
+        assertEquals(8, store.get(4L));
+    }
+
+    @Test
+    void evict_ReseedsFromDatabaseMinusPending() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(prize(1L, 5)));
+        strategy.reserve(1L);
+
+        strategy.evict(1L);
+        assertTrue(strategy.reserve(1L));
+
+        // 5 in the table, 1 pending write-back, 1 just reserved
+        assertEquals(3, store.get(1L));
+    }
+
+    @Test
+    void reserveQuantity_GrantsWhatIsLeft() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(prize(1L, 7)));
+
+        assertEquals(5, strategy.reserve(1L, 5));
+        assertEquals(2, strategy.reserve(1L, 5));
+        assertEquals(0, strategy.reserve(1L, 5));
+
+        assertEquals(0, store.get(1L));
+        assertEquals(7, store.getPending(1L));
+    }
+
+    private Prize prize(Long id, int availableStock) {
+        Prize prize = new Prize();
+        prize.setId(id);
+        prize.setAvailableStock(availableStock);
+        return prize;
+    }
+}
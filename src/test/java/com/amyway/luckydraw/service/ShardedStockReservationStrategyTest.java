@@ -0,0 +1,163 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.service.impl.ShardedStockReservationStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedStockReservationStrategyTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Test
+    void reserve_StealsFromOtherShardsUntilSoldOut() {
+        when(prizeRepository.findAvailableStockById(1L)).thenReturn(10);
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 4, 60_000);
+
+        // A single thread drains its home shard and then the other three
+        int wins = 0;
+        for (int i = 0; i < 15; i++) {
+            if (strategy.reserve(1L)) {
+                wins++;
+            }
+        }
+
+        assertEquals(10, wins);
+    }
+
+    @Test
+    void reserveQuantity_TakesAcrossShardsAndStopsAtStock() {
+        when(prizeRepository.findAvailableStockById(1L)).thenReturn(10);
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 4, 60_000);
+
+        assertEquals(6, strategy.reserve(1L, 6));
+        assertEquals(4, strategy.reserve(1L, 6));
+        assertEquals(0, strategy.reserve(1L, 6));
+    }
+
+    @Test
+    void reserve_NeverOversellsUnderContention() throws InterruptedException {
+        when(prizeRepository.findAvailableStockById(1L)).thenReturn(100);
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 8, 60_000);
+
+        int threadCount = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger wins = new AtomicInteger();
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 20; j++) {
+                    if (strategy.reserve(1L)) {
+                        wins.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        assertEquals(100, wins.get());
+    }
+
+    @Test
+    void flushPending_WritesAggregatedDecrementOnce() {
+        when(prizeRepository.findAvailableStockById(1L)).thenReturn(10);
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 4, 60_000);
+        for (int i = 0; i < 3; i++) {
+            strategy.reserve(1L);
+        }
+
+        strategy.flushPending();
+        strategy.flushPending();
+
+        verify(prizeRepository, times(1)).decrementStockBy(1L, 3);
+    }
+
+    @Test
+    void reserve_RefillsFromDatabaseWhenDry() {
+        when(prizeRepository.findAvailableStockById(1L))
+                .thenReturn(1)
+                .thenReturn(5); // 1 not written back yet, then an admin added 4 directly
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 2, 0);
+
+        assertTrue(strategy.reserve(1L));
+        assertEquals(4, strategy.reserve(1L, 10));
+        verify(prizeRepository, never()).decrementStockBy(anyLong(), anyInt());
+    }
+
+    @Test
+    void reserve_RefillsUnderContentionNeverOversell() throws InterruptedException {
+        // The table as the write-back leaves it
+        AtomicInteger table = new AtomicInteger(100);
+        when(prizeRepository.findAvailableStockById(1L)).thenAnswer(invocation -> table.get());
+        when(prizeRepository.decrementStockBy(eq(1L), anyInt()))
+                .thenAnswer(invocation -> {
+                    table.addAndGet(-(int) invocation.getArgument(1));
+                    return 1;
+                });
+        // No refill interval: every dry shard walk resyncs while other threads take
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 8, 0);
+
+        int threadCount = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger wins = new AtomicInteger();
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 20; j++) {
+                    if (strategy.reserve(1L)) {
+                        wins.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        strategy.flushPending();
+
+        assertEquals(100, wins.get());
+        assertEquals(0, table.get());
+    }
+
+    @Test
+    void evict_ResyncsTheHeldCounterWithTheEditedTable() {
+        AtomicInteger table = new AtomicInteger(10);
+        when(prizeRepository.findAvailableStockById(1L)).thenAnswer(invocation -> table.get());
+        when(prizeRepository.decrementStockBy(eq(1L), anyInt()))
+                .thenAnswer(invocation -> {
+                    table.addAndGet(-(int) invocation.getArgument(1));
+                    return 1;
+                });
+        ShardedStockReservationStrategy strategy = new ShardedStockReservationStrategy(prizeRepository, 4, 60_000);
+        assertEquals(3, strategy.reserve(1L, 3));
+
+        // Admin edit: flush, set the table, evict after commit
+        strategy.flush(1L);
+        table.set(20);
+        strategy.evict(1L);
+
+        assertEquals(20, strategy.reserve(1L, 25));
+
+        // Restocked, then lowered below what the counter holds
+        strategy.flush(1L);
+        table.set(10);
+        strategy.evict(1L);
+        table.set(4);
+        strategy.evict(1L);
+        assertEquals(4, strategy.reserve(1L, 5));
+    }
+}
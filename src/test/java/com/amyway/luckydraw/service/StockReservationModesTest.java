@@ -0,0 +1,162 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.domain.StockMode;
+import com.amyway.luckydraw.domain.User;
+import com.amyway.luckydraw.repository.ActivityRepository;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.amyway.luckydraw.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.data.redis.repositories.enabled=false",
+        "luckydraw.warmup.enabled=false"
+})
+class StockReservationModesTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private DrawService drawService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private StockReservationRouter stockReservationRouter;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @ParameterizedTest
+    @EnumSource(value = StockMode.class, names = { "DATABASE", "PESSIMISTIC", "OPTIMISTIC" })
+    void draw_UsesTheActivitysStockMode(StockMode mode) throws Exception {
+        Activity activity = new Activity();
+        activity.setName("stock-" + mode);
+        activity.setMaxDrawsPerUser(100);
+        activity.setStockMode(mode);
+        activity.getPrizes().add(new Prize(null, "Gold", 10, 10, 1.0, null));
+        activity = activityRepository.save(activity);
+        Long activityId = activity.getId();
+        Long prizeId = activity.getPrizes().get(0).getId();
+
+        AtomicInteger wins = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> draws = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Long userId = newUser(mode + "-" + i);
+                draws.add(executor.submit(() -> {
+                    try {
+                        if (drawService.draw(userId, activityId, 1).get(0).isWin()) {
+                            wins.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        // No empty prize to fall back to once Gold is gone
+                    }
+                }));
+            }
+            for (Future<?> draw : draws) {
+                draw.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Prize prize = prizeRepository.findById(prizeId).orElseThrow();
+        assertTrue(wins.get() > 0 && wins.get() <= 10, "Wins " + wins.get());
+        assertEquals(10 - wins.get(), prize.getAvailableStock());
+        if (mode != StockMode.DATABASE) {
+            // Both locking modes go through the @Version column
+            assertEquals(wins.get(), prize.getVersion());
+        }
+    }
+
+    @Test
+    void optimistic_RetriesConflictsWithoutOverselling() throws Exception {
+        Long prizeId = prizeRepository.save(new Prize(null, "Contended", 1000, 1000, 0.5, null)).getId();
+        StockReservationStrategy strategy = stockReservationRouter.strategy(StockMode.OPTIMISTIC);
+
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger updates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < 20; j++) {
+                        int reserved = transactionTemplate.execute(status -> strategy.reserve(prizeId, 3));
+                        granted.addAndGet(reserved);
+                        if (reserved > 0) {
+                            updates.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Prize prize = prizeRepository.findById(prizeId).orElseThrow();
+        assertTrue(granted.get() > 0);
+        assertEquals(1000 - granted.get(), prize.getAvailableStock());
+        assertEquals(updates.get(), prize.getVersion());
+    }
+
+    @Test
+    void createActivity_RejectsSharingAPrizeAcrossStockModes() {
+        Prize prize = prizeRepository.save(new Prize(null, "Shared", 5, 5, 0.5, null));
+        Activity first = new Activity();
+        first.setName("pessimistic-owner");
+        first.setStockMode(StockMode.PESSIMISTIC);
+        adminService.createActivity(first, List.of(prize.getId()));
+
+        Activity second = new Activity();
+        second.setName("memory-sharer");
+        second.setStockMode(StockMode.MEMORY);
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> adminService.createActivity(second, List.of(prize.getId())));
+        assertTrue(exception.getMessage().contains("相同的庫存模式"));
+
+        // Redis counters only exist where luckydraw.stock.mode=redis
+        Activity redis = new Activity();
+        redis.setName("redis");
+        redis.setStockMode(StockMode.REDIS);
+        exception = assertThrows(RuntimeException.class, () -> adminService.createActivity(redis, List.of()));
+        assertTrue(exception.getMessage().contains("未啟用庫存模式"));
+    }
+
+    private Long newUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setDrawQuota(100);
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,94 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+class StockStreamServiceTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+    @Mock
+    private StockReservationRouter stockReservationRouter;
+    @Mock
+    private TicketPoolService ticketPoolService;
+
+    @Test
+    void subscribers_GetOneSnapshotThenCoalescedChanges() throws Exception {
+        Prize gold = new Prize(1L, "Gold", 10, 10, 0.1, 0);
+        Prize silver = new Prize(2L, "Silver", 50, 50, 0.2, 0);
+        when(prizeRepository.findByActivityId(100L)).thenReturn(List.of(gold, silver));
+        StockStreamService service = new StockStreamService(prizeRepository, stockReservationRouter,
+                ticketPoolService, new ObjectMapper(), 60_000);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(service)).build();
+
+        MvcResult first = mockMvc.perform(get("/stream/100")).andExpect(request().asyncStarted()).andReturn();
+        MvcResult second = mockMvc.perform(get("/stream/100")).andExpect(request().asyncStarted()).andReturn();
+
+        service.reserved(Map.of(1L, 2));
+        service.reserved(Map.of(1L, 1, 3L, 5));
+        service.publish();
+        // Nothing changed since the last publish
+        service.publish();
+
+        // Stock was loaded once for both subscribers
+        verify(prizeRepository, times(1)).findByActivityId(100L);
+        assertEquals(2, service.subscribers(100L));
+        for (MvcResult result : List.of(first, second)) {
+            String body = result.getResponse().getContentAsString();
+            assertTrue(body.contains("event:snapshot"), body);
+            assertTrue(body.contains("\"prizeId\":2,\"name\":\"Silver\",\"availableStock\":50"), body);
+            // Two draws of Gold become one message; prize 3 is not part of the activity
+            assertEquals(1, body.split("event:stock", -1).length - 1, body);
+            assertTrue(body.contains("event:stock\ndata:{\"activityId\":100,\"prizes\":[{\"prizeId\":1,\"name\":\"Gold\","
+                    + "\"availableStock\":7}]}"), body);
+        }
+    }
+
+    @Test
+    void reserved_IgnoredWhenNobodyWatches() {
+        StockStreamService service = new StockStreamService(prizeRepository, stockReservationRouter,
+                ticketPoolService, new ObjectMapper(), 60_000);
+
+        service.reserved(Map.of(1L, 2));
+        service.publish();
+        service.resync();
+
+        verifyNoInteractions(prizeRepository, stockReservationRouter, ticketPoolService);
+    }
+
+    @RestController
+    static class StreamController {
+
+        private final StockStreamService service;
+
+        StreamController(StockStreamService service) {
+            this.service = service;
+        }
+
+        @GetMapping("/stream/{activityId}")
+        SseEmitter stream(@PathVariable Long activityId) {
+            return service.subscribe(activityId);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.amyway.luckydraw.service;
+
+import com.amyway.luckydraw.cache.ActivitySnapshot;
+import com.amyway.luckydraw.domain.Activity;
+import com.amyway.luckydraw.domain.DrawMode;
+import com.amyway.luckydraw.domain.Prize;
+import com.amyway.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketPoolServiceTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void ticketCounts_GivesEveryPrizeItsStockAndFillsWithEmpty() {
+        ActivitySnapshot activity = activity(
+                new Prize(1L, "Gold", 10, 10, 0.01, 0),
+                new Prize(2L, "Silver", 50, 50, 0.1, 0),
+                new Prize(3L, "銘謝惠顧", 999999, 999999, 0.89, 0));
+
+        // Gold sets the size: 10 / 0.01 = 1000 tickets
+        assertArrayEquals(new int[] { 10, 50, 940 }, TicketPoolService.ticketCounts(activity.prizes(), 10_000));
+    }
+
+    @Test
+    void ticketCounts_RejectsPoolAboveLimit() {
+        ActivitySnapshot activity = activity(
+                new Prize(1L, "Gold", 10, 10, 0.0001, 0),
+                new Prize(2L, "銘謝惠顧", 999999, 999999, 0.9999, 0));
+
+        Exception e = assertThrows(RuntimeException.class,
+                () -> TicketPoolService.ticketCounts(activity.prizes(), 10_000));
+        assertTrue(e.getMessage().contains("票池過大"));
+    }
+
+    @Test
+    void draw_HandsOutExactlyThePoolThenNothing() {
+        ActivitySnapshot activity = activity(
+                new Prize(1L, "Gold", 3, 3, 0.1, 0),
+                new Prize(2L, "銘謝惠顧", 999999, 999999, 0.9, 0));
+        TicketPoolService service = new TicketPoolService(prizeRepository, dir.toString(), 10_000);
+        service.create(activity);
+
+        Map<Long, Integer> counts = tally(service.draw(activity, 30));
+
+        assertEquals(3, counts.get(1L));
+        assertEquals(27, counts.get(2L));
+        assertNull(service.draw(activity, 1).get(0));
+        assertEquals(0, service.stats(activity).remaining());
+
+        service.flushPending();
+        verify(prizeRepository).decrementStockBy(1L, 3);
+    }
+
+    @Test
+    void draw_ResumesFromCursorAfterRestart() {
+        ActivitySnapshot activity = activity(
+                new Prize(1L, "Gold", 5, 5, 0.05, 0),
+                new Prize(2L, "銘謝惠顧", 999999, 999999, 0.95, 0));
+        TicketPoolService first = new TicketPoolService(prizeRepository, dir.toString(), 10_000);
+        first.create(activity);
+        List<Long> before = new ArrayList<>(first.draw(activity, 40));
+
+        // A new instance maps the same file instead of shuffling a new pool
+        TicketPoolService second = new TicketPoolService(prizeRepository, dir.toString(), 10_000);
+        assertEquals(60, second.stats(activity).remaining());
+        before.addAll(second.draw(activity, 60));
+
+        assertEquals(5, tally(before).get(1L));
+        assertEquals(95, tally(before).get(2L));
+    }
+
+    @Test
+    void draw_RolledBackTicketsAreHandedOutAgain() {
+        ActivitySnapshot activity = activity(
+                new Prize(1L, "Gold", 1, 1, 0.5, 0),
+                new Prize(2L, "銘謝惠顧", 999999, 999999, 0.5, 0));
+        TicketPoolService service = new TicketPoolService(prizeRepository, dir.toString(), 10_000);
+        service.create(activity);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.draw(activity, 2);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+                    .getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, service.stats(activity).remaining());
+        assertEquals(1, tally(service.draw(activity, 2)).get(1L));
+    }
+
+    private static ActivitySnapshot activity(Prize... prizes) {
+        Activity activity = new Activity();
+        activity.setId(7L);
+        activity.setDrawMode(DrawMode.TICKET_POOL);
+        return ActivitySnapshot.of(activity, List.of(prizes));
+    }
+
+    private static Map<Long, Integer> tally(List<Long> prizeIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        prizeIds.forEach(id -> counts.merge(id, 1, Integer::sum));
+        return counts;
+    }
+}
@@ -1,5 +1,6 @@
 package com.amyway.luckydraw.service;
 
+import com.amyway.luckydraw.cache.DrawRejectionCache;
 import com.amyway.luckydraw.domain.User;
 import com.amyway.luckydraw.dto.CreateUserRequest;
 import com.amyway.luckydraw.dto.UpdateUserRequest;
@@ -23,6 +24,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DrawRejectionCache drawRejectionCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -72,6 +76,23 @@ class UserServiceTest {
 
         assertEquals("New", updated.getName());
         assertEquals(10, updated.getDrawQuota());
+        verifyNoInteractions(drawRejectionCache);
+    }
+
+    @Test
+    void updateUser_RaisedQuotaForgetsRememberedRejections() {
+        User existing = new User();
+        existing.setId(1L);
+        existing.setDrawQuota(10);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        UpdateUserRequest req = new UpdateUserRequest();
+        req.setDrawQuota(20);
+        userService.updateUser(1L, req);
+
+        verify(drawRejectionCache).invalidateUser(1L);
     }
 
     @Test
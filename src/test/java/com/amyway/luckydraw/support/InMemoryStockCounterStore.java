@@ -0,0 +1,85 @@
+package com.amyway.luckydraw.support;
+
+import com.amyway.luckydraw.service.StockCounterStore;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process stand-in for the Redis counters. Each method is synchronized to
+ * mirror the atomicity of the Lua scripts.
+ */
+public class InMemoryStockCounterStore implements StockCounterStore {
+
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private final Map<Long, Integer> pending = new HashMap<>();
+
+    @Override
+    public synchronized long reserve(Long prizeId, int quantity) {
+        Integer current = stock.get(prizeId);
+        if (current == null) {
+            return MISSING;
+        }
+        if (current < quantity) {
+            return INSUFFICIENT;
+        }
+        pending.merge(prizeId, quantity, Integer::sum);
+        stock.put(prizeId, current - quantity);
+        return current - quantity;
+    }
+
+    @Override
+    public synchronized void release(Long prizeId, int quantity) {
+        stock.computeIfPresent(prizeId, (id, current) -> current + quantity);
+        pending.merge(prizeId, -quantity, Integer::sum);
+    }
+
+    @Override
+    public synchronized boolean seed(Long prizeId, int value) {
+        return stock.putIfAbsent(prizeId, value) == null;
+    }
+
+    @Override
+    public synchronized Integer get(Long prizeId) {
+        return stock.get(prizeId);
+    }
+
+    @Override
+    public synchronized void set(Long prizeId, int value) {
+        stock.put(prizeId, value);
+    }
+
+    @Override
+    public synchronized long reseed(Long prizeId, int databaseStock) {
+        Integer previous = stock.put(prizeId, Math.max(0, databaseStock - pending.getOrDefault(prizeId, 0)));
+        return previous == null ? MISSING : previous;
+    }
+
+    @Override
+    public synchronized void delete(Long prizeId) {
+        stock.remove(prizeId);
+    }
+
+    @Override
+    public synchronized Set<Long> pendingPrizeIds() {
+        return new HashSet<>(pending.keySet());
+    }
+
+    @Override
+    public synchronized int getPending(Long prizeId) {
+        return pending.getOrDefault(prizeId, 0);
+    }
+
+    @Override
+    public synchronized int takePending(Long prizeId) {
+        Integer taken = pending.remove(prizeId);
+        return taken == null ? 0 : taken;
+    }
+
+    @Override
+    public synchronized void addPending(Long prizeId, int quantity) {
+        pending.merge(prizeId, quantity, Integer::sum);
+    }
+}